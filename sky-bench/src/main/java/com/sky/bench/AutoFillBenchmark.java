@@ -0,0 +1,80 @@
+package com.sky.bench;
+
+import com.sky.annotation.AutoFill;
+import com.sky.aspect.AutoFillAspect;
+import com.sky.context.BaseContext;
+import com.sky.entity.Dish;
+import com.sky.mapper.DishMapper;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公共字段自动填充切面：新增和修改菜品
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoFillBenchmark {
+    private final AutoFillAspect autoFillAspect = new AutoFillAspect();
+
+    private final Dish dish = new Dish();
+
+    private JoinPoint insertJoinPoint;
+
+    private JoinPoint updateJoinPoint;
+
+    private AutoFill insertAutoFill;
+
+    private AutoFill updateAutoFill;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        //切面从BaseContext中读取当前用户，JMH在基准测试线程上执行Scope.Thread的setup
+        BaseContext.setCurrentId(1L);
+        Method insert = DishMapper.class.getMethod("insert", Dish.class);
+        Method update = DishMapper.class.getMethod("update", Dish.class);
+        insertJoinPoint = joinPoint(insert, dish);
+        updateJoinPoint = joinPoint(update, dish);
+        insertAutoFill = insert.getAnnotation(AutoFill.class);
+        updateAutoFill = update.getAnnotation(AutoFill.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BaseContext.removeCurrentId();
+    }
+
+    @Benchmark
+    public Dish insert() {
+        autoFillAspect.autoFill(insertJoinPoint, insertAutoFill);
+        return dish;
+    }
+
+    @Benchmark
+    public Dish update() {
+        autoFillAspect.autoFill(updateJoinPoint, updateAutoFill);
+        return dish;
+    }
+
+    private static JoinPoint joinPoint(Method method, Object... args) {
+        MethodSignature signature = BenchData.fake(MethodSignature.class,
+                (proxy, m, a) -> "getMethod".equals(m.getName()) ? method : null);
+        return BenchData.fake(JoinPoint.class, (proxy, m, a) -> {
+            switch (m.getName()) {
+                case "getSignature":
+                    return signature;
+                case "getArgs":
+                    return args;
+                default:
+                    return null;
+            }
+        });
+    }
+}
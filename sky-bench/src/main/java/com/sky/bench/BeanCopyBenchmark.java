@@ -0,0 +1,63 @@
+package com.sky.bench;
+
+import com.sky.entity.OrderDetail;
+import com.sky.entity.ShoppingCart;
+import com.sky.vo.OrderVO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.BeanUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单、再来一单、订单查询中的BeanUtils.copyProperties
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeanCopyBenchmark {
+    private ShoppingCart shoppingCart;
+
+    private OrderDetail orderDetail;
+
+    private OrderVO orders;
+
+    @Setup
+    public void setup() {
+        shoppingCart = BenchData.shoppingCart(1L);
+        orderDetail = BenchData.orderDetail(1L, 1L);
+        orders = BenchData.orderList(1).get(0);
+    }
+
+    /**
+     * 下单：购物车转为订单明细
+     */
+    @Benchmark
+    public OrderDetail shoppingCartToOrderDetail() {
+        OrderDetail target = new OrderDetail();
+        BeanUtils.copyProperties(shoppingCart, target);
+        return target;
+    }
+
+    /**
+     * 再来一单：订单明细转为购物车
+     */
+    @Benchmark
+    public ShoppingCart orderDetailToShoppingCart() {
+        ShoppingCart target = new ShoppingCart();
+        BeanUtils.copyProperties(orderDetail, target, "id");
+        return target;
+    }
+
+    /**
+     * 订单查询：订单转为OrderVO
+     */
+    @Benchmark
+    public OrderVO ordersToOrderVO() {
+        OrderVO target = new OrderVO();
+        BeanUtils.copyProperties(orders, target);
+        return target;
+    }
+}
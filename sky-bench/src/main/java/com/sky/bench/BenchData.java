@@ -0,0 +1,135 @@
+package com.sky.bench;
+
+import com.sky.entity.DishFlavor;
+import com.sky.entity.OrderDetail;
+import com.sky.entity.Orders;
+import com.sky.entity.ShoppingCart;
+import com.sky.vo.DishVO;
+import com.sky.vo.OrderVO;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试使用的数据和模拟对象
+ */
+public class BenchData {
+
+    private BenchData() {
+    }
+
+    /**
+     * 带口味的菜品列表
+     * @param size
+     * @return
+     */
+    public static List<DishVO> dishList(int size) {
+        List<DishVO> list = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            List<DishFlavor> flavors = new ArrayList<>();
+            flavors.add(DishFlavor.builder().id(i * 2).dishId(i).name("辣度").value("[\"不辣\",\"微辣\",\"中辣\",\"重辣\"]").build());
+            flavors.add(DishFlavor.builder().id(i * 2 + 1).dishId(i).name("忌口").value("[\"不要葱\",\"不要蒜\",\"不要香菜\"]").build());
+
+            DishVO dishVO = new DishVO();
+            dishVO.setId(i);
+            dishVO.setName("菜品" + i);
+            dishVO.setCategoryId(i % 10);
+            dishVO.setPrice(new BigDecimal("38.00"));
+            dishVO.setImage("https://sky-take-out.oss-cn-beijing.aliyuncs.com/dish-" + i + ".png");
+            dishVO.setDescription("招牌菜品，选用新鲜食材现炒");
+            dishVO.setStatus(1);
+            dishVO.setUpdateTime(LocalDateTime.now());
+            dishVO.setCategoryName("热菜");
+            dishVO.setFlavors(flavors);
+            list.add(dishVO);
+        }
+        return list;
+    }
+
+    /**
+     * 带明细的订单列表
+     * @param size
+     * @return
+     */
+    public static List<OrderVO> orderList(int size) {
+        List<OrderVO> list = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            OrderVO orderVO = new OrderVO();
+            orderVO.setId(i);
+            orderVO.setNumber(String.valueOf(1700000000000L + i));
+            orderVO.setStatus(Orders.TO_BE_CONFIRMED);
+            orderVO.setUserId(i % 100);
+            orderVO.setAddressBookId(i);
+            orderVO.setOrderTime(LocalDateTime.now());
+            orderVO.setCheckoutTime(LocalDateTime.now());
+            orderVO.setPayMethod(1);
+            orderVO.setPayStatus(Orders.PAID);
+            orderVO.setAmount(new BigDecimal("126.00"));
+            orderVO.setPhone("13800000000");
+            orderVO.setAddress("北京市昌平区金燕龙办公楼");
+            orderVO.setConsignee("张三");
+            orderVO.setEstimatedDeliveryTime(LocalDateTime.now().plusHours(1));
+            orderVO.setOrderDishes("菜品1*2;菜品2*1;");
+            List<OrderDetail> details = new ArrayList<>();
+            for (long j = 1; j <= 3; j++) {
+                details.add(orderDetail(i * 10 + j, i));
+            }
+            orderVO.setOrderDetailList(details);
+            list.add(orderVO);
+        }
+        return list;
+    }
+
+    public static OrderDetail orderDetail(long id, long orderId) {
+        return OrderDetail.builder()
+                .id(id)
+                .orderId(orderId)
+                .name("菜品" + id)
+                .dishId(id)
+                .dishFlavor("微辣,不要葱")
+                .number(2)
+                .amount(new BigDecimal("38.00"))
+                .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/dish-" + id + ".png")
+                .build();
+    }
+
+    public static ShoppingCart shoppingCart(long id) {
+        return ShoppingCart.builder()
+                .id(id)
+                .name("菜品" + id)
+                .userId(1L)
+                .dishId(id)
+                .dishFlavor("微辣,不要葱")
+                .number(2)
+                .amount(new BigDecimal("38.00"))
+                .image("https://sky-take-out.oss-cn-beijing.aliyuncs.com/dish-" + id + ".png")
+                .createTime(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * 用动态代理创建接口的模拟对象，Object的方法按对象标识处理，其余方法交给handler
+     * @param type
+     * @param handler
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    return handler.invoke(proxy, method, args);
+            }
+        });
+    }
+}
@@ -0,0 +1,47 @@
+package com.sky.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.vo.DishVO;
+import com.sky.vo.OrderVO;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口响应的json序列化：C端菜品列表、订单列表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    @Param({"20", "200"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private List<DishVO> dishList;
+
+    private List<OrderVO> orderList;
+
+    @Setup
+    public void setup() {
+        dishList = BenchData.dishList(size);
+        orderList = BenchData.orderList(size);
+    }
+
+    @Benchmark
+    public String dishList() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(dishList);
+    }
+
+    @Benchmark
+    public String orderList() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(orderList);
+    }
+}
@@ -0,0 +1,45 @@
+package com.sky.bench;
+
+import com.sky.constant.JwtClaimsConstant;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求在拦截器中校验jwt令牌
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+    private static final String SECRET_KEY = "itcast";
+
+    private final Key signingKey = JwtUtil.signingKey(SECRET_KEY);
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtClaimsConstant.EMP_ID, 1L);
+        token = JwtUtil.createJWT(SECRET_KEY, 7200000L, claims);
+    }
+
+    @Benchmark
+    public Claims parseJWT() {
+        return JwtUtil.parseJWT(SECRET_KEY, token);
+    }
+
+    @Benchmark
+    public Claims parseJWTWithSigningKey() {
+        return JwtUtil.parseJWT(signingKey, token);
+    }
+}
@@ -0,0 +1,83 @@
+package com.sky.bench;
+
+import com.sky.websocket.WebSocketServer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket群发：从提交消息到所有客户端发送完成
+ * 模拟的会话立即完成异步发送，测量的是群发本身的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebSocketBroadcastBenchmark {
+    @Param({"10", "100"})
+    private int clients;
+
+    private final WebSocketServer webSocketServer = new WebSocketServer();
+
+    //所有客户端已发送的消息总数
+    private final AtomicLong delivered = new AtomicLong();
+
+    private Session[] sessions;
+
+    private long sequence;
+
+    @Setup
+    public void setup() {
+        sessions = new Session[clients];
+        for (int i = 0; i < clients; i++) {
+            sessions[i] = session(String.valueOf(i));
+            webSocketServer.onOpen(sessions[i], "bench-" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (int i = 0; i < clients; i++) {
+            webSocketServer.onClose(sessions[i], "bench-" + i);
+        }
+    }
+
+    @Benchmark
+    public long broadcast() {
+        long expected = delivered.get() + clients;
+        webSocketServer.sendToAllClient("订单号：" + sequence++);
+        while (delivered.get() < expected) {
+            Thread.yield();
+        }
+        return expected;
+    }
+
+    private Session session(String id) {
+        RemoteEndpoint.Async async = BenchData.fake(RemoteEndpoint.Async.class, (proxy, method, args) -> {
+            if ("sendText".equals(method.getName()) && args != null && args.length == 2) {
+                delivered.incrementAndGet();
+                ((SendHandler) args[1]).onResult(new SendResult());
+            }
+            return null;
+        });
+        return BenchData.fake(Session.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getId":
+                    return id;
+                case "isOpen":
+                    return true;
+                case "getAsyncRemote":
+                    return async;
+                default:
+                    return null;
+            }
+        });
+    }
+}
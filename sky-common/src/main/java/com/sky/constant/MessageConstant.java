@@ -19,10 +19,20 @@ public class MessageConstant {
     public static final String SETMEAL_ENABLE_FAILED = "套餐内包含未启售菜品，无法启售";
     public static final String PASSWORD_EDIT_FAILED = "密码修改失败";
     public static final String DISH_ON_SALE = "起售中的菜品不能删除";
+    public static final String DISH_NOT_FOUND = "菜品不存在";
     public static final String SETMEAL_ON_SALE = "起售中的套餐不能删除";
     public static final String DISH_BE_RELATED_BY_SETMEAL = "当前菜品关联了套餐,不能删除";
     public static final String ORDER_STATUS_ERROR = "订单状态错误";
     public static final String ORDER_NOT_FOUND = "订单不存在";
     public static final String ALREADY_EXISTS = "账户已存在";
-
+    public static final String REPORT_DATE_RANGE_ERROR = "报表日期区间错误";
+    public static final String REPORT_EXPORT_BUSY = "导出任务过多，请稍后再试";
+    public static final String REPORT_EXPORT_NOT_FOUND = "导出任务不存在或已过期";
+    public static final String REPORT_EXPORT_NOT_READY = "导出任务尚未完成";
+    public static final String SHOP_ADDRESS_PARSE_FAILED = "店铺地址解析失败";
+    public static final String ADDRESS_PARSE_FAILED = "收货地址解析失败";
+    public static final String DELIVERY_ROUTE_FAILED = "配送线路规划失败";
+    public static final String OUT_OF_DELIVERY_RANGE = "超出配送范围";
+    public static final String ORDER_CURSOR_INVALID = "分页游标无效";
+    public static final String STATS_DATE_RANGE_ERROR = "重算日期区间错误或超过允许的最大天数";
 }
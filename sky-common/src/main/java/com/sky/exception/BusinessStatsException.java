@@ -0,0 +1,12 @@
+package com.sky.exception;
+
+/**
+ * 营业数据汇总异常
+ */
+public class BusinessStatsException extends BaseException {
+
+    public BusinessStatsException(String msg) {
+        super(msg);
+    }
+
+}
@@ -0,0 +1,48 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "sky.http-client")
+@Data
+public class HttpClientProperties {
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxTotal = 200;
+
+    /**
+     * 每个目标主机默认的最大连接数
+     */
+    private int defaultMaxPerRoute = 20;
+
+    /**
+     * 单独配置的主机最大连接数，key为 协议://主机[:端口]，例如 sky.http-client.max-per-host.[https://api.weixin.qq.com]=50
+     */
+    private Map<String, Integer> maxPerHost = new HashMap<>();
+
+    /**
+     * 建立连接、从连接池获取连接、读取响应的超时时间，单位毫秒
+     */
+    private int connectTimeout = 5000;
+    private int connectionRequestTimeout = 5000;
+    private int socketTimeout = 5000;
+
+    /**
+     * 服务端未返回Keep-Alive时，空闲连接保留的时间，单位秒
+     */
+    private long keepAliveSeconds = 30;
+
+    /**
+     * 异步请求线程数和排队上限，排队满时由调用线程执行
+     */
+    private int asyncThreads = 8;
+    private int asyncQueueCapacity = 1000;
+
+}
@@ -0,0 +1,23 @@
+package com.sky.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "sky.id")
+@Data
+public class IdGeneratorProperties {
+
+    /**
+     * 机器id，取值0~1023，多节点部署时每个节点必须不同
+     * 不配置时从redis中租用一个空闲的机器id
+     */
+    private Long workerId;
+
+    /**
+     * redis中机器id租约的有效期，单位秒，节点会定时续约
+     */
+    private long leaseTtl = 60;
+
+}
@@ -18,5 +18,7 @@ public class WeChatProperties {
     private String weChatPayCertFilePath; //平台证书
     private String notifyUrl; //支付成功的回调地址
     private String refundNotifyUrl; //退款成功的回调地址
+    private String apiBaseUrl = "https://api.mch.weixin.qq.com"; //微信支付接口地址，压测时可指向本地模拟服务
+    private boolean stubEnabled; //启用本地模拟支付服务，此时不校验应答签名，未配置商户私钥文件时使用临时生成的私钥
 
 }
@@ -0,0 +1,22 @@
+package com.sky.result;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 封装游标分页查询结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResult implements Serializable {
+    private List records;
+    //查询下一页时传入的游标，没有更多数据时为null
+    private String nextCursor;
+    //总记录数，只有请求时才统计，否则为null
+    private Long total;
+}
@@ -1,16 +1,26 @@
 package com.sky.utils;
 
 import com.alibaba.fastjson.JSONObject;
+import com.sky.properties.HttpClientProperties;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicNameValuePair;
 import org.apache.http.util.EntityUtils;
 
@@ -19,64 +29,92 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Http工具类
+ * 所有请求共用一个带连接池的HttpClient，连接按主机复用(keep-alive)，不再每次请求都重新建立TCP和TLS连接
  */
+@Slf4j
 public class HttpClientUtil {
 
     static final  int TIMEOUT_MSEC = 5 * 1000;
 
-    private static RequestConfig builderRequestConfig() {
-        return RequestConfig.custom()
-                .setConnectTimeout(TIMEOUT_MSEC)
-                .setConnectionRequestTimeout(TIMEOUT_MSEC)
-                .setSocketTimeout(TIMEOUT_MSEC).build();
-    }
+    private static volatile ClientPool pool;
+
     /**
-     * 发送GET方式请求
-     * @param url
-     * @param paramMap
-     * @return
+     * 按配置重新创建连接池，服务启动时调用；未调用时使用默认配置
+     * @param properties 连接池配置
      */
-    public static String doGet(String url,Map<String,String> paramMap){
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
+    public static synchronized void configure(HttpClientProperties properties) {
+        ClientPool old = pool;
+        pool = new ClientPool(properties);
+        if (old != null) {
+            old.close();
+        }
+    }
 
-        String result = "";
-        CloseableHttpResponse response = null;
+    /**
+     * 关闭连接池和异步线程，服务停止时调用
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
 
-        try{
-            URIBuilder builder = new URIBuilder(url);
-            if(paramMap != null){
-                for (String key : paramMap.keySet()) {
-                    builder.addParameter(key,paramMap.get(key));
+    private static ClientPool pool() {
+        ClientPool current = pool;
+        if (current == null) {
+            synchronized (HttpClientUtil.class) {
+                if (pool == null) {
+                    HttpClientProperties properties = new HttpClientProperties();
+                    properties.setConnectTimeout(TIMEOUT_MSEC);
+                    properties.setConnectionRequestTimeout(TIMEOUT_MSEC);
+                    properties.setSocketTimeout(TIMEOUT_MSEC);
+                    pool = new ClientPool(properties);
                 }
+                current = pool;
             }
-            URI uri = builder.build();
-
-            //创建GET请求
-            HttpGet httpGet = new HttpGet(uri);
+        }
+        return current;
+    }
 
-            //发送请求
-            response = httpClient.execute(httpGet);
+    /**
+     * 发送GET方式请求
+     * @param url
+     * @param paramMap
+     * @return 响应状态为200时返回响应内容，否则或请求失败时返回空字符串
+     */
+    public static String doGet(String url,Map<String,String> paramMap){
+        try {
+            return get(url, paramMap);
+        } catch (IOException e) {
+            log.error("GET请求失败：{}", url, e);
+            return "";
+        }
+    }
 
-            //判断响应状态
-            if(response.getStatusLine().getStatusCode() == 200){
-                result = EntityUtils.toString(response.getEntity(),"UTF-8");
-            }
-        }catch (Exception e){
-            e.printStackTrace();
-        }finally {
+    /**
+     * 异步发送GET方式请求，请求失败时返回的future以异常结束
+     * @param url
+     * @param paramMap
+     * @return 响应状态为200时为响应内容，否则为空字符串
+     */
+    public static CompletableFuture<String> doGetAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                response.close();
-                httpClient.close();
+                return get(url, paramMap);
             } catch (IOException e) {
-                e.printStackTrace();
+                throw new CompletionException(e);
             }
-        }
-
-        return result;
+        }, pool().asyncExecutor);
     }
 
     /**
@@ -87,93 +125,184 @@ public class HttpClientUtil {
      * @throws IOException
      */
     public static String doPost(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-        try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
-            // 创建参数列表
-            if (paramMap != null) {
-                List<NameValuePair> paramList = new ArrayList();
-                for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
-                }
-                // 模拟表单
-                UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList);
-                httpPost.setEntity(entity);
+        // 创建参数列表
+        if (paramMap != null) {
+            List<NameValuePair> paramList = new ArrayList<>();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                paramList.add(new BasicNameValuePair(param.getKey(), param.getValue()));
             }
+            // 模拟表单
+            UrlEncodedFormEntity entity = new UrlEncodedFormEntity(paramList, "UTF-8");
+            httpPost.setEntity(entity);
+        }
 
-            httpPost.setConfig(builderRequestConfig());
+        // 执行http请求
+        return execute(httpPost, false);
+    }
 
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+    /**
+     * 发送POST方式请求
+     * @param url
+     * @param paramMap
+     * @return
+     * @throws IOException
+     */
+    public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
+        // 创建Http Post请求
+        HttpPost httpPost = new HttpPost(url);
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
-        } finally {
-            try {
-                response.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+        if (paramMap != null) {
+            //构造json格式数据
+            JSONObject jsonObject = new JSONObject();
+            for (Map.Entry<String, String> param : paramMap.entrySet()) {
+                jsonObject.put(param.getKey(),param.getValue());
             }
+            StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
+            //设置请求编码
+            entity.setContentEncoding("utf-8");
+            //设置数据类型
+            entity.setContentType("application/json");
+            httpPost.setEntity(entity);
         }
 
-        return resultString;
+        // 执行http请求
+        return execute(httpPost, false);
     }
 
     /**
-     * 发送POST方式请求
+     * 异步发送json格式的POST请求，请求失败时返回的future以异常结束
      * @param url
      * @param paramMap
      * @return
-     * @throws IOException
      */
-    public static String doPost4Json(String url, Map<String, String> paramMap) throws IOException {
-        // 创建Httpclient对象
-        CloseableHttpClient httpClient = HttpClients.createDefault();
-        CloseableHttpResponse response = null;
-        String resultString = "";
+    public static CompletableFuture<String> doPost4JsonAsync(String url, Map<String, String> paramMap) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return doPost4Json(url, paramMap);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, pool().asyncExecutor);
+    }
 
+    private static String get(String url, Map<String, String> paramMap) throws IOException {
+        URI uri;
         try {
-            // 创建Http Post请求
-            HttpPost httpPost = new HttpPost(url);
-
+            URIBuilder builder = new URIBuilder(url);
             if (paramMap != null) {
-                //构造json格式数据
-                JSONObject jsonObject = new JSONObject();
                 for (Map.Entry<String, String> param : paramMap.entrySet()) {
-                    jsonObject.put(param.getKey(),param.getValue());
+                    builder.addParameter(param.getKey(), param.getValue());
                 }
-                StringEntity entity = new StringEntity(jsonObject.toString(),"utf-8");
-                //设置请求编码
-                entity.setContentEncoding("utf-8");
-                //设置数据类型
-                entity.setContentType("application/json");
-                httpPost.setEntity(entity);
             }
+            uri = builder.build();
+        } catch (Exception e) {
+            throw new IOException("请求地址错误：" + url, e);
+        }
 
-            httpPost.setConfig(builderRequestConfig());
-
-            // 执行http请求
-            response = httpClient.execute(httpPost);
+        //创建GET请求
+        return execute(new HttpGet(uri), true);
+    }
 
-            resultString = EntityUtils.toString(response.getEntity(), "UTF-8");
-        } catch (Exception e) {
-            throw e;
+    /**
+     * 执行请求并读取响应，响应内容读完后连接归还连接池
+     * 按 主机+路径 记录耗时，outcome为响应状态码，请求异常时为error
+     * @param onlyOk 为true时非200的响应返回空字符串
+     */
+    private static String execute(HttpRequestBase request, boolean onlyOk) throws IOException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try (CloseableHttpResponse response = pool().client.execute(request)) {
+            int statusCode = response.getStatusLine().getStatusCode();
+            outcome = String.valueOf(statusCode);
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return "";
+            }
+            if (onlyOk && statusCode != 200) {
+                EntityUtils.consume(entity);
+                return "";
+            }
+            return EntityUtils.toString(entity, "UTF-8");
         } finally {
+            URI uri = request.getURI();
+            Timer.builder("sky.http.client.requests")
+                    .tag("host", String.valueOf(uri.getHost()))
+                    .tag("uri", uri.getPath() == null || uri.getPath().isEmpty() ? "/" : uri.getPath())
+                    .tag("outcome", outcome)
+                    .register(Metrics.globalRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 连接池、HttpClient和异步线程池
+     */
+    private static final class ClientPool {
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final CloseableHttpClient client;
+        private final ThreadPoolExecutor asyncExecutor;
+
+        ClientPool(HttpClientProperties properties) {
+            connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(properties.getMaxTotal());
+            connectionManager.setDefaultMaxPerRoute(properties.getDefaultMaxPerRoute());
+            //空闲超过2秒的连接在复用前先检查是否已被服务端关闭
+            connectionManager.setValidateAfterInactivity(2000);
+            for (Map.Entry<String, Integer> entry : properties.getMaxPerHost().entrySet()) {
+                connectionManager.setMaxPerRoute(route(entry.getKey()), entry.getValue());
+            }
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(properties.getConnectTimeout())
+                    .setConnectionRequestTimeout(properties.getConnectionRequestTimeout())
+                    .setSocketTimeout(properties.getSocketTimeout()).build();
+
+            long defaultKeepAliveMillis = TimeUnit.SECONDS.toMillis(properties.getKeepAliveSeconds());
+            client = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    //优先使用服务端返回的Keep-Alive时间，没有时使用配置的时间
+                    .setKeepAliveStrategy((response, context) -> {
+                        long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return keepAlive > 0 ? keepAlive : defaultKeepAliveMillis;
+                    })
+                    //后台线程定时关闭过期和空闲的连接
+                    .evictExpiredConnections()
+                    .evictIdleConnections(properties.getKeepAliveSeconds(), TimeUnit.SECONDS)
+                    .build();
+
+            AtomicInteger threadNumber = new AtomicInteger();
+            asyncExecutor = new ThreadPoolExecutor(properties.getAsyncThreads(), properties.getAsyncThreads(),
+                    60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(properties.getAsyncQueueCapacity()),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "http-client-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            asyncExecutor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * 实际请求的路由会补全默认端口并区分是否https，这里按相同规则构造才能匹配
+         */
+        private static HttpRoute route(String hostUrl) {
+            HttpHost host = HttpHost.create(hostUrl);
+            boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+            int port = host.getPort() > 0 ? host.getPort() : (secure ? 443 : 80);
+            return new HttpRoute(new HttpHost(host.getHostName(), port, host.getSchemeName()), null, secure);
+        }
+
+        void close() {
+            asyncExecutor.shutdown();
             try {
-                response.close();
+                client.close();
             } catch (IOException e) {
-                e.printStackTrace();
+                log.warn("关闭HttpClient失败", e);
             }
         }
-
-        return resultString;
     }
-
 }
@@ -4,13 +4,25 @@ import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+
+import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Date;
 import java.util.Map;
 
 
 
 public class JwtUtil {
+    /**
+     * 由jwt密钥生成HS256签名用的Key
+     * Key不可变，可以预先创建后在多个线程中重复使用，避免每次签名、校验都重新转换密钥字节
+     * @param secretKey jwt密钥
+     */
+    public static SecretKeySpec signingKey(String secretKey) {
+        return new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS256.getJcaName());
+    }
+
     /**
      * 生成jwt
      * 使用Hs256算法,私钥使用固定密钥
@@ -20,6 +32,16 @@ public class JwtUtil {
      * return
      */
     public static String createJWT(String secretKey, long ttlMillis, Map<String, Object> claims){
+        return createJWT(signingKey(secretKey), ttlMillis, claims);
+    }
+
+    /**
+     * 使用预先创建的Key生成jwt
+     * @param signingKey 由{@link #signingKey(String)}创建的密钥
+     * @param ttlMillis jwt有效期,单位毫秒
+     * @param claims 设置的信息
+     */
+    public static String createJWT(Key signingKey, long ttlMillis, Map<String, Object> claims){
         //指定签名的时候使用的签名算法，也就是header的部分
         SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.HS256;
 
@@ -31,7 +53,7 @@ public class JwtUtil {
                 //如果有私有声明，则先设置这个私有声明，给builder的claim赋值，写在标准的声明赋值之后，覆盖标准的声明
                .setClaims(claims)
                 //设置签名使用的签名算法和签名使用的密钥
-               .signWith(signatureAlgorithm, secretKey.getBytes(StandardCharsets.UTF_8))
+               .signWith(signatureAlgorithm, signingKey)
                 //设置过期时间
         .setExpiration(exp);
         return builder.compact();
@@ -43,11 +65,21 @@ public class JwtUtil {
      * @param token 加密后的token
      */
     public static Claims parseJWT(String secretKey, String token)
+    {
+        return parseJWT(signingKey(secretKey), token);
+    }
+
+    /**
+     * 使用预先创建的Key校验并解析token
+     * @param signingKey 由{@link #signingKey(String)}创建的密钥
+     * @param token 加密后的token
+     */
+    public static Claims parseJWT(Key signingKey, String token)
     {
         //得到DefaultJwtParser
         return Jwts.parser()
                 //设置签名的秘钥
-               .setSigningKey(secretKey.getBytes(StandardCharsets.UTF_8))
+               .setSigningKey(signingKey)
                 //设置需要解析的jwt
         .parseClaimsJws(token).getBody();
     }
@@ -0,0 +1,50 @@
+package com.sky.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 订单游标分页的游标：上一页最后一条订单的 (下单时间, id)
+ * 对外以不透明的字符串传递，客户端只需原样带回
+ */
+@Data
+@AllArgsConstructor
+public class OrderCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private LocalDateTime orderTime;
+
+    private Long id;
+
+    /**
+     * 编码为url安全的字符串
+     * @return
+     */
+    public String encode() {
+        String raw = orderTime.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标
+     * @param cursor 游标字符串
+     * @return 游标，格式错误时返回null
+     */
+    public static OrderCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                return null;
+            }
+            return new OrderCursor(LocalDateTime.parse(raw.substring(0, index)), Long.valueOf(raw.substring(index + 1)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
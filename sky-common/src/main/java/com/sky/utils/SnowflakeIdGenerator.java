@@ -0,0 +1,117 @@
+package com.sky.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 雪花算法id生成器
+ * 64位id结构：1位符号位(0) + 41位毫秒时间戳(相对EPOCH) + 10位机器id + 12位序列号
+ * 同一节点内id严格递增，不同节点通过机器id区分，生成过程无需任何远程调用
+ * 机器id从redis租用时，只在租约有效期内生成id，租约失效后拒绝生成，避免与接手该机器id的节点产生重复id
+ */
+@Slf4j
+public class SnowflakeIdGenerator {
+
+    //起始时间 2024-01-01 00:00:00 (UTC+8)
+    public static final long EPOCH = 1704038400000L;
+
+    private static final long WORKER_ID_BITS = 10L;
+    private static final long SEQUENCE_BITS = 12L;
+
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final long TIMESTAMP_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+
+    //允许等待的最大时钟回拨，单位毫秒，超过则拒绝生成id
+    private static final long MAX_BACKWARD_MS = 5L;
+
+    private volatile long workerId;
+
+    //租约有效期截止时间(毫秒)，固定配置机器id时不限制
+    private long validUntil = Long.MAX_VALUE;
+
+    private long lastTimestamp = -1L;
+
+    private long sequence = 0L;
+
+    public SnowflakeIdGenerator(long workerId) {
+        checkWorkerId(workerId);
+        this.workerId = workerId;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 更新机器id的租约：续约成功时延长有效期，原机器id被占用后改用新租到的机器id
+     * @param workerId 当前持有的机器id
+     * @param validUntil 租约有效期截止时间(毫秒)
+     */
+    public synchronized void renewLease(long workerId, long validUntil) {
+        checkWorkerId(workerId);
+        this.workerId = workerId;
+        this.validUntil = validUntil;
+    }
+
+    /**
+     * 生成下一个id
+     * @return
+     */
+    public synchronized long nextId() {
+        long timestamp = currentTimeMillis();
+
+        if (timestamp >= validUntil) {
+            throw new IllegalStateException("机器id " + workerId + " 的租约已失效，拒绝生成id");
+        }
+
+        if (timestamp < lastTimestamp) {
+            //时钟回拨，小幅回拨时等待时钟追上，否则抛出异常，避免生成重复id
+            long offset = lastTimestamp - timestamp;
+            if (offset > MAX_BACKWARD_MS) {
+                throw new IllegalStateException("系统时钟回拨" + offset + "毫秒，拒绝生成id");
+            }
+            log.warn("系统时钟回拨{}毫秒，等待时钟追上", offset);
+            timestamp = waitUntilAfter(lastTimestamp - 1);
+        }
+
+        if (timestamp == lastTimestamp) {
+            //同一毫秒内序列号递增，序列号用完时等待下一毫秒
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                timestamp = waitUntilAfter(lastTimestamp);
+            }
+        } else {
+            sequence = 0L;
+        }
+
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << TIMESTAMP_SHIFT)
+                | (workerId << WORKER_ID_SHIFT)
+                | sequence;
+    }
+
+    /**
+     * 自旋等待，直到当前时间大于指定时间
+     * @param timestamp
+     * @return
+     */
+    private long waitUntilAfter(long timestamp) {
+        long now = currentTimeMillis();
+        while (now <= timestamp) {
+            now = currentTimeMillis();
+        }
+        return now;
+    }
+
+    private static void checkWorkerId(long workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId必须在0~" + MAX_WORKER_ID + "之间：" + workerId);
+        }
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+}
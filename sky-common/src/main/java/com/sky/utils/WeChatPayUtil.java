@@ -3,102 +3,218 @@ package com.sky.utils;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.sky.properties.WeChatProperties;
+import com.wechat.pay.contrib.apache.httpclient.Validator;
 import com.wechat.pay.contrib.apache.httpclient.WechatPayHttpClientBuilder;
 import com.wechat.pay.contrib.apache.httpclient.util.PemUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.http.HttpHeaders;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.util.EntityUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.Signature;
 import java.security.cert.X509Certificate;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Base64;
-import java.util.List;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 微信支付工具类
+ * 商户私钥和平台证书只在首次使用和文件变化时加载，签名验签的HttpClient带连接池，所有请求共用
  */
 @Component
+@Slf4j
 public class WeChatPayUtil {
 
-    //微信支付下单接口地址
-    public static final String JSAPI = "https://api.mch.weixin.qq.com/v3/pay/transactions/jsapi";
+    //微信支付下单接口路径
+    public static final String JSAPI = "/v3/pay/transactions/jsapi";
 
-    //申请退款接口地址
-    public static final String REFUNDS = "https://api.mch.weixin.qq.com/v3/refund/domestic/refunds";
+    //申请退款接口路径
+    public static final String REFUNDS = "/v3/refund/domestic/refunds";
+
+    static final int TIMEOUT_MSEC = 5 * 1000;
 
     @Autowired
     private WeChatProperties weChatProperties;
 
+    //当前使用的商户私钥和HttpClient
+    private volatile Credentials credentials;
+
+    //重新加载后被替换的HttpClient，下次检查时再关闭，避免中断正在进行的请求
+    private Credentials retired;
+
+    //模拟支付模式下临时生成的商户私钥
+    private PrivateKey stubPrivateKey;
+
+    /**
+     * 获取当前的商户私钥和调用微信接口的客户端，首次调用时加载
+     * @return
+     */
+    private Credentials credentials() throws IOException {
+        Credentials current = credentials;
+        if (current == null) {
+            synchronized (this) {
+                if (credentials == null) {
+                    credentials = loadCredentials();
+                }
+                current = credentials;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 商户私钥或平台证书文件发生变化时重新加载，由定时任务调用
+     * 加载失败时继续使用原来的私钥和证书
+     */
+    public synchronized void reloadIfChanged() {
+        if (retired != null) {
+            retired.close();
+            retired = null;
+        }
+        Credentials current = credentials;
+        if (current == null || !current.isStale(privateKeyFile(), certFile())) {
+            return;
+        }
+        try {
+            credentials = loadCredentials();
+            retired = current;
+            log.info("微信支付商户私钥和平台证书已重新加载");
+        } catch (Exception e) {
+            log.error("重新加载微信支付商户私钥和平台证书失败，继续使用原来的配置", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (retired != null) {
+            retired.close();
+            retired = null;
+        }
+        if (credentials != null) {
+            credentials.close();
+            credentials = null;
+        }
+    }
+
     /**
-     * 获取调用微信接口的客户端工具对象
+     * 加载商户私钥和平台证书，创建调用微信接口的客户端工具对象
      * @return
      */
-    private CloseableHttpClient getClient()
-    {
-        PrivateKey merchantPrivateKey = null;
-        try{
-            //merchantPrivateKey商户API私钥，如何加载商户API私钥请看常见问题
-            merchantPrivateKey = PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath())));
+    private Credentials loadCredentials() throws IOException {
+        File privateKeyFile = privateKeyFile();
+        File certFile = certFile();
+        boolean stub = weChatProperties.isStubEnabled();
+
+        //merchantPrivateKey商户API私钥
+        PrivateKey merchantPrivateKey;
+        if (stub && (privateKeyFile == null || !privateKeyFile.isFile())) {
+            merchantPrivateKey = stubPrivateKey();
+        } else {
+            try (InputStream in = new FileInputStream(privateKeyFile)) {
+                merchantPrivateKey = PemUtil.loadPrivateKey(in);
+            }
+        }
+
+        WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
+                .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey);
+        if (stub) {
+            //模拟支付服务的应答没有微信支付平台的签名
+            builder.withValidator(new Validator() {
+                @Override
+                public boolean validate(CloseableHttpResponse response) {
+                    return true;
+                }
+            });
+        } else {
             //加载平台证书文件
-            X509Certificate x509Certificate = PemUtil.loadCertificate(new FileInputStream(new File(weChatProperties.getWeChatPayCertFilePath())));
-            //wechatPayCertificates微信支付平台证书列表,可以使用后面章节提到的定时更新平台证书功能,而不需要关心平台证书的来龙去脉
-            List<X509Certificate> x509CertificateList = Arrays.asList(x509Certificate);
-            //wechatPayCertificates微信支付平台证书列表。你也可以使用后面章节提到的“定时更新平台证书功能”，而不需要关心平台证书的来龙去脉
-            List<X509Certificate> wechatPayCertificates = Arrays.asList(x509Certificate);
-
-            WechatPayHttpClientBuilder builder = WechatPayHttpClientBuilder.create()
-                    .withMerchant(weChatProperties.getMchid(), weChatProperties.getMchSerialNo(), merchantPrivateKey)
-                    .withWechatPay(wechatPayCertificates);
-
-            // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签
-            CloseableHttpClient httpClient = builder.build();
-            return httpClient;
-
-        }catch(FileNotFoundException e){
-            e.printStackTrace();
-            return null;
+            X509Certificate x509Certificate;
+            try (InputStream in = new FileInputStream(certFile)) {
+                x509Certificate = PemUtil.loadCertificate(in);
+            }
+            builder.withWechatPay(Collections.singletonList(x509Certificate));
         }
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(50);
+        connectionManager.setDefaultMaxPerRoute(50);
+        builder.setConnectionManager(connectionManager);
+        builder.setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT_MSEC)
+                .setConnectionRequestTimeout(TIMEOUT_MSEC)
+                .setSocketTimeout(TIMEOUT_MSEC).build());
+        builder.evictIdleConnections(30, TimeUnit.SECONDS);
+
+        // 通过WechatPayHttpClientBuilder构造的HttpClient，会自动的处理签名和验签，可以在多个线程中共用
+        return new Credentials(merchantPrivateKey, builder.build(),
+                lastModified(privateKeyFile), lastModified(certFile));
+    }
+
+    private synchronized PrivateKey stubPrivateKey() {
+        if (stubPrivateKey == null) {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                stubPrivateKey = generator.generateKeyPair().getPrivate();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            log.warn("微信支付使用模拟支付服务：{}，商户私钥为临时生成", weChatProperties.getApiBaseUrl());
+        }
+        return stubPrivateKey;
+    }
+
+    private File privateKeyFile() {
+        String path = weChatProperties.getPrivateKeyFilePath();
+        return path == null ? null : new File(path);
+    }
+
+    private File certFile() {
+        String path = weChatProperties.getWeChatPayCertFilePath();
+        return path == null ? null : new File(path);
+    }
+
+    private static long lastModified(File file) {
+        return file == null ? 0L : file.lastModified();
     }
 
     /**
      * 发送post方式请求
      *
-     * @param url
+     * @param path
      * @param body
      * @return
      */
-    private String post(String url, String body) throws Exception {
-        CloseableHttpClient httpClient = getClient();
-
-        HttpPost httpPost = new HttpPost(url);
+    private String post(String path, String body) throws Exception {
+        HttpPost httpPost = new HttpPost(weChatProperties.getApiBaseUrl() + path);
         httpPost.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString());
         httpPost.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpPost.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
         httpPost.setEntity(new StringEntity(body, "UTF-8"));
 
-        CloseableHttpResponse response = httpClient.execute(httpPost);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        //只关闭响应，连接归还连接池
+        try (CloseableHttpResponse response = credentials().httpClient.execute(httpPost)) {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
         }
     }
 
@@ -106,24 +222,17 @@ public class WeChatPayUtil {
     /**
      * 发送get方式请求
      *
-     * @param url
+     * @param path
      * @return
      */
-    private String get(String url) throws Exception {
-        CloseableHttpClient httpClient = getClient();
-
-        HttpGet httpGet = new HttpGet(url);
+    private String get(String path) throws Exception {
+        HttpGet httpGet = new HttpGet(weChatProperties.getApiBaseUrl() + path);
         httpGet.addHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader(HttpHeaders.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
         httpGet.addHeader("Wechatpay-Serial", weChatProperties.getMchSerialNo());
 
-        CloseableHttpResponse response = httpClient.execute(httpGet);
-        try {
-            String bodyAsString = EntityUtils.toString(response.getEntity());
-            return bodyAsString;
-        } finally {
-            httpClient.close();
-            response.close();
+        try (CloseableHttpResponse response = credentials().httpClient.execute(httpGet)) {
+            return EntityUtils.toString(response.getEntity(), "UTF-8");
         }
     }
 
@@ -172,10 +281,10 @@ public class WeChatPayUtil {
         String bodyAsString = jsapi(orderNum,total,description,openid);
         //解析返回结果
         JSONObject jsonObject = JSON.parseObject(bodyAsString);
-        System.out.println(jsonObject);
+        log.debug("微信支付下单结果：{}", jsonObject);
 
         String prepayId = jsonObject.getString("prepay_id");
-        if (prepayId == null){
+        if (prepayId != null){
             String timeStamp = String.valueOf(System.currentTimeMillis() / 1000);
             String nonceStr = RandomStringUtils.randomNumeric(32);
             ArrayList<Object> list = new ArrayList<>();
@@ -189,10 +298,10 @@ public class WeChatPayUtil {
                 stringBuilder.append(object).append("\n");
             }
             String signMessage = stringBuilder.toString();
-            byte[] message = signMessage.getBytes();
+            byte[] message = signMessage.getBytes(StandardCharsets.UTF_8);
 
             Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(PemUtil.loadPrivateKey(new FileInputStream(new File(weChatProperties.getPrivateKeyFilePath()))));
+            signature.initSign(credentials().merchantPrivateKey);
             signature.update(message);
             String packageSign = Base64.getEncoder().encodeToString(signature.sign());
 
@@ -236,7 +345,33 @@ public class WeChatPayUtil {
         return post(REFUNDS,body);
     }
 
-}
-
+    /**
+     * 加载好的商户私钥、签名验签的HttpClient，以及加载时私钥和证书文件的修改时间
+     */
+    private static final class Credentials {
+        private final PrivateKey merchantPrivateKey;
+        private final CloseableHttpClient httpClient;
+        private final long privateKeyModified;
+        private final long certModified;
+
+        Credentials(PrivateKey merchantPrivateKey, CloseableHttpClient httpClient,
+                    long privateKeyModified, long certModified) {
+            this.merchantPrivateKey = merchantPrivateKey;
+            this.httpClient = httpClient;
+            this.privateKeyModified = privateKeyModified;
+            this.certModified = certModified;
+        }
 
+        boolean isStale(File privateKeyFile, File certFile) {
+            return lastModified(privateKeyFile) != privateKeyModified || lastModified(certFile) != certModified;
+        }
 
+        void close() {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("关闭微信支付HttpClient失败", e);
+            }
+        }
+    }
+}
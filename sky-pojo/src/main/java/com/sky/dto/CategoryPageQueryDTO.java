@@ -3,6 +3,7 @@ package com.sky.dto;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 public class CategoryPageQueryDTO implements Serializable {
@@ -19,4 +20,7 @@ public class CategoryPageQueryDTO implements Serializable {
     //分类类型 1菜品分类  2套餐分类
     private Integer type;
 
+    //由服务端按名称检索出的id，不为null时只查询这些id
+    private List<Long> ids;
+
 }
@@ -3,6 +3,7 @@ package com.sky.dto;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.List;
 
 @Data
 public class DishPageQueryDTO implements Serializable {
@@ -19,4 +20,10 @@ public class DishPageQueryDTO implements Serializable {
     //状态 0表示禁用 1表示启用
     private Integer status;
 
+    //是否同时查询菜品的口味
+    private Boolean withFlavors;
+
+    //由服务端按名称检索出的id，不为null时只查询这些id
+    private List<Long> ids;
+
 }
@@ -0,0 +1,30 @@
+package com.sky.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 按天分组的订单统计数据
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderDateStatDTO implements Serializable {
+    //下单日期
+    private LocalDate orderDate;
+
+    //当日订单总数
+    private Integer orderCount;
+
+    //当日有效订单数
+    private Integer validOrderCount;
+
+    //当日营业额
+    private Double turnover;
+}
@@ -5,6 +5,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 public class OrdersPageQueryDTO implements Serializable {
@@ -27,4 +28,21 @@ public class OrdersPageQueryDTO implements Serializable {
 
     private Long userId;
 
+    //由服务端按订单号、手机号检索出的订单id，不为null时只查询这些订单
+    private List<Long> ids;
+
+    //游标分页：上一页返回的游标，为空时查询第一页
+    private String cursor;
+
+    //游标分页：是否统计总记录数
+    private boolean withTotal;
+
+    //游标分页：由服务端解析游标后设置，查询下单时间和id排在其后的订单
+    private LocalDateTime afterOrderTime;
+
+    private Long afterId;
+
+    //游标分页：由服务端设置的查询条数
+    private Integer limit;
+
 }
@@ -0,0 +1,36 @@
+package com.sky.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportExportJobVO implements Serializable {
+    public static final String PENDING = "PENDING";
+    public static final String RUNNING = "RUNNING";
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+
+    //导出任务id
+    private String id;
+    //报表开始日期
+    private LocalDate begin;
+    //报表结束日期
+    private LocalDate end;
+    //任务状态 PENDING等待 RUNNING导出中 SUCCESS完成 FAILED失败
+    private String status;
+    //失败原因
+    private String message;
+    //提交时间
+    private LocalDateTime createTime;
+    //完成时间
+    private LocalDateTime finishTime;
+}
@@ -9,19 +9,26 @@ import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.stereotype.Component;
-import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Method;
-import java.time.LocalDate;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 @Aspect
 @Component
 @Slf4j
 public class AutoFillAspect {
+    //每个实体类的填充方案，第一次填充该类时创建
+    private static final ClassValue<FillPlan> FILL_PLANS = new ClassValue<FillPlan>() {
+        @Override
+        protected FillPlan computeValue(Class<?> type) {
+            return new FillPlan(type);
+        }
+    };
+
     /**
      * 切入点
      */
@@ -32,51 +39,100 @@ public class AutoFillAspect {
 
     /**
      * 前置通知
+     * 第一个参数为实体对象或实体集合(批量插入)，按实体类缓存的填充方案为公共字段赋值
      */
-    @Before("autoFillPointCut()")
-    public void autoFill(JoinPoint joinPoint) {
-        log.info("开始进行公共字段填充");
-        //获取当前被拦截的数据库操作的类型
-        MethodSignature signature = (MethodSignature) joinPoint.getSignature();//方法前面的对象
-        AutoFill autoFill = signature.getMethod().getAnnotation(AutoFill.class);//获得方法上的注解对象
-        OperationType operationType = autoFill.value();//找到对应的数据库操作类型
-
+    @Before("autoFillPointCut() && @annotation(autoFill)")
+    public void autoFill(JoinPoint joinPoint, AutoFill autoFill) {
         //获取当前被拦截的方法的参数
         Object[] args = joinPoint.getArgs();
-        if (args==null ||args.length == 0) {
+        if (args == null || args.length == 0 || args[0] == null) {
             return;
         }
-        Object entity = args[0];
+        //找到对应的数据库操作类型
+        OperationType operationType = autoFill.value();
+        log.debug("开始进行公共字段填充：{}", operationType);
+
         //准备赋值的数据
         LocalDateTime now = LocalDateTime.now();
         Long currentId = BaseContext.getCurrentId();
+        if (args[0] instanceof Collection) {
+            for (Object entity : (Collection<?>) args[0]) {
+                fill(entity, operationType, now, currentId);
+            }
+        } else {
+            fill(args[0], operationType, now, currentId);
+        }
+    }
+
+    private void fill(Object entity, OperationType operationType, LocalDateTime now, Long currentId) {
+        if (entity == null) {
+            return;
+        }
+        FillPlan plan = FILL_PLANS.get(entity.getClass());
         //根据不同的操作类型，为对应的属性赋值
-        if(operationType == OperationType.INSERT) {
-            try {
-                Method setCreateTime = entity.getClass().getMethod(AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
-                Method setCreateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_CREATE_USER, Long.class);
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
+        if (operationType == OperationType.INSERT) {
+            plan.fillInsert(entity, now, currentId);
+        } else if (operationType == OperationType.UPDATE) {
+            plan.fillUpdate(entity, now, currentId);
+        }
+    }
 
-                //通过反射为对象属性赋值
-                setCreateTime.invoke(entity, now);
-                setCreateUser.invoke(entity, currentId);
-                setUpdateTime.invoke(entity, now);
-                setUpdateUser.invoke(entity, currentId);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+    /**
+     * 实体类的填充方案，保存四个公共字段setter的MethodHandle
+     * setter统一适配为(Object, Object)void，调用时不再需要反射查找方法和参数装箱的Method.invoke
+     */
+    private static class FillPlan {
+        private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final Class<?> type;
+        private final MethodHandle setCreateTime;
+        private final MethodHandle setCreateUser;
+        private final MethodHandle setUpdateTime;
+        private final MethodHandle setUpdateUser;
+
+        FillPlan(Class<?> type) {
+            this.type = type;
+            this.setCreateTime = findSetter(type, AutoFillConstant.SET_CREATE_TIME, LocalDateTime.class);
+            this.setCreateUser = findSetter(type, AutoFillConstant.SET_CREATE_USER, Long.class);
+            this.setUpdateTime = findSetter(type, AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
+            this.setUpdateUser = findSetter(type, AutoFillConstant.SET_UPDATE_USER, Long.class);
+        }
+
+        void fillInsert(Object entity, LocalDateTime now, Long currentId) {
+            invoke(setCreateTime, AutoFillConstant.SET_CREATE_TIME, entity, now);
+            invoke(setCreateUser, AutoFillConstant.SET_CREATE_USER, entity, currentId);
+            fillUpdate(entity, now, currentId);
+        }
+
+        void fillUpdate(Object entity, LocalDateTime now, Long currentId) {
+            invoke(setUpdateTime, AutoFillConstant.SET_UPDATE_TIME, entity, now);
+            invoke(setUpdateUser, AutoFillConstant.SET_UPDATE_USER, entity, currentId);
+        }
+
+        private void invoke(MethodHandle setter, String name, Object entity, Object value) {
+            if (setter == null) {
+                throw new IllegalStateException(type.getName() + "缺少公共字段方法：" + name);
             }
-            }else if (operationType == OperationType.UPDATE) {
-            //为两个公共字段赋值
             try {
-                Method setUpdateTime = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_TIME, LocalDateTime.class);
-                Method setUpdateUser = entity.getClass().getDeclaredMethod(AutoFillConstant.SET_UPDATE_USER, Long.class);
-                //通过反射为对象属性赋值
-                setUpdateTime.invoke(entity, now);
-                setUpdateUser.invoke(entity, currentId);
-            } catch (Exception e) {
+                setter.invokeExact(entity, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
                 throw new RuntimeException(e);
             }
         }
+
+        /**
+         * 查找public的setter，不存在时返回null，用到时再报错
+         */
+        private static MethodHandle findSetter(Class<?> type, String name, Class<?> parameterType) {
+            try {
+                return MethodHandles.publicLookup()
+                        .findVirtual(type, name, MethodType.methodType(void.class, parameterType))
+                        .asType(SETTER_TYPE);
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                return null;
+            }
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.sky.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 一级缓存删除消息
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidation {
+    //缓存名称
+    private String cacheName;
+
+    //缓存的key，为null时删除该缓存的全部数据
+    private String key;
+}
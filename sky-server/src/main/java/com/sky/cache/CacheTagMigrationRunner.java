@@ -0,0 +1,38 @@
+package com.sky.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一次性迁移：启动时清理无法按标签删除的菜品缓存
+ * 旧版本以 dish_分类id 为key缓存菜品，以及未登记标签的 dishCache::分类id，都用scan查找后删除，访问时重新缓存并登记标签
+ * 默认关闭，升级后在一个节点上设置 sky.cache.tag-migration.enabled=true 启动一次即可，之后的缓存写入都会登记标签
+ */
+@Component
+@ConditionalOnProperty(name = "sky.cache.tag-migration.enabled", havingValue = "true")
+@Slf4j
+public class CacheTagMigrationRunner implements ApplicationRunner {
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long legacy = RedisKeyScanner.unlink(stringRedisTemplate, "dish_*", key -> true);
+
+        String prefix = "dishCache::";
+        long untagged = RedisKeyScanner.unlink(stringRedisTemplate, prefix + "*", key -> {
+            String categoryId = key.substring(prefix.length());
+            Boolean tagged = stringRedisTemplate.opsForSet().isMember(CacheTags.KEY_PREFIX + "category:" + categoryId, key);
+            return !Boolean.TRUE.equals(tagged);
+        });
+
+        if (legacy > 0 || untagged > 0) {
+            log.info("清理未登记标签的菜品缓存：旧格式{}条，未登记标签{}条", legacy, untagged);
+        }
+    }
+}
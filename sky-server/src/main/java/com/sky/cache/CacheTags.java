@@ -0,0 +1,31 @@
+package com.sky.cache;
+
+/**
+ * 缓存标签
+ * 缓存数据写入时登记到相关的标签下，数据变更时按标签删除缓存，无需扫描redis中的key
+ */
+public class CacheTags {
+    //标签在redis中的key前缀，每个标签是一个set，成员为缓存在redis中的key
+    public static final String KEY_PREFIX = "sky:cache:tag:";
+
+    private CacheTags() {
+    }
+
+    /**
+     * 分类标签，分类下的菜品列表等缓存登记在该标签下
+     * @param categoryId
+     * @return
+     */
+    public static String category(Long categoryId) {
+        return "category:" + categoryId;
+    }
+
+    /**
+     * 菜品标签，包含该菜品的缓存登记在该标签下
+     * @param dishId
+     * @return
+     */
+    public static String dish(Long dishId) {
+        return "dish:" + dishId;
+    }
+}
@@ -0,0 +1,66 @@
+package com.sky.cache;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 用scan分批查找并删除redis中的key，避免keys命令阻塞redis
+ */
+public class RedisKeyScanner {
+    //每次scan和unlink的数量
+    private static final int BATCH_SIZE = 500;
+
+    private RedisKeyScanner() {
+    }
+
+    /**
+     * 删除匹配pattern且满足filter的key，使用unlink在后台释放内存
+     * @param redisTemplate
+     * @param pattern
+     * @param filter
+     * @return 删除的数量
+     */
+    public static long unlink(RedisTemplate<String, ?> redisTemplate, String pattern, Predicate<String> filter) {
+        List<String> keys = redisTemplate.execute((RedisCallback<List<String>>) connection -> {
+            List<String> result = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(pattern).count(BATCH_SIZE).build();
+            try (Cursor<byte[]> cursor = connection.scan(options)) {
+                cursor.forEachRemaining(key -> result.add(new String(key, StandardCharsets.UTF_8)));
+            }
+            return result;
+        });
+        if (keys == null) {
+            return 0;
+        }
+
+        long count = 0;
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (String key : keys) {
+            if (!filter.test(key)) {
+                continue;
+            }
+            batch.add(key);
+            if (batch.size() == BATCH_SIZE) {
+                count += unlinkBatch(redisTemplate, batch);
+            }
+        }
+        count += unlinkBatch(redisTemplate, batch);
+        return count;
+    }
+
+    private static long unlinkBatch(RedisTemplate<String, ?> redisTemplate, List<String> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Long count = redisTemplate.unlink(batch);
+        batch.clear();
+        return count == null ? 0 : count;
+    }
+}
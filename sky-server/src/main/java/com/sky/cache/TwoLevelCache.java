@@ -0,0 +1,182 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+
+/**
+ * 两级缓存：一级为进程内的caffeine缓存，二级为redis
+ * 查询时依次查找一级、二级缓存，二级命中后回填一级缓存
+ * 删除缓存时同时删除redis中的数据，并通过redis发布删除消息，由各节点删除各自的一级缓存
+ */
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+    private final String name;
+
+    private final Cache<String, Object> localCache;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    //二级缓存的有效期，为0时不过期
+    private final Duration redisTtl;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public TwoLevelCache(String name, Cache<String, Object> localCache, RedisTemplate<String, Object> redisTemplate,
+                         StringRedisTemplate stringRedisTemplate, Duration redisTtl, MeterRegistry meterRegistry) {
+        super(false);
+        this.name = name;
+        this.localCache = localCache;
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisTtl = redisTtl;
+        this.localHits = meterRegistry.counter(TwoLevelCacheManager.METRIC_NAME, "cache", name, "tier", "l1", "result", "hit");
+        this.localMisses = meterRegistry.counter(TwoLevelCacheManager.METRIC_NAME, "cache", name, "tier", "l1", "result", "miss");
+        this.redisHits = meterRegistry.counter(TwoLevelCacheManager.METRIC_NAME, "cache", name, "tier", "l2", "result", "hit");
+        this.redisMisses = meterRegistry.counter(TwoLevelCacheManager.METRIC_NAME, "cache", name, "tier", "l2", "result", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = String.valueOf(key);
+        Object value = localCache.getIfPresent(cacheKey);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        value = redisTemplate.opsForValue().get(getRedisKey(cacheKey));
+        if (value != null) {
+            redisHits.increment();
+            localCache.put(cacheKey, value);
+        } else {
+            redisMisses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valueWrapper = get(key);
+        if (valueWrapper != null) {
+            return (T) valueWrapper.get();
+        }
+
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String cacheKey = String.valueOf(key);
+        if (redisTtl.isZero()) {
+            redisTemplate.opsForValue().set(getRedisKey(cacheKey), value);
+        } else {
+            redisTemplate.opsForValue().set(getRedisKey(cacheKey), value, redisTtl);
+        }
+        localCache.put(cacheKey, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String cacheKey = String.valueOf(key);
+        redisTemplate.delete(getRedisKey(cacheKey));
+        localCache.invalidate(cacheKey);
+        publish(cacheKey);
+    }
+
+    @Override
+    public void clear() {
+        RedisKeyScanner.unlink(redisTemplate, name + "::*", key -> true);
+        localCache.invalidateAll();
+        publish(null);
+    }
+
+    /**
+     * 写入缓存，并登记到标签下，按标签删除时一并删除
+     * @param key
+     * @param value
+     * @param tags
+     */
+    public void put(Object key, Object value, Collection<String> tags) {
+        put(key, value);
+        String redisKey = getRedisKey(String.valueOf(key));
+        tags.forEach(tag -> {
+            String tagKey = CacheTags.KEY_PREFIX + tag;
+            stringRedisTemplate.opsForSet().add(tagKey, redisKey);
+            if (!redisTtl.isZero()) {
+                stringRedisTemplate.expire(tagKey, redisTtl);
+            }
+        });
+    }
+
+    /**
+     * 只删除本节点的一级缓存，收到其他节点的删除消息时调用
+     * @param key 为null时删除全部
+     */
+    public void evictLocal(String key) {
+        if (key == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidate(key);
+        }
+    }
+
+    /**
+     * 删除本节点的一级缓存，并通知其他节点删除，二级缓存已由调用方删除
+     * @param key
+     */
+    void evictLocalAndPublish(String key) {
+        localCache.invalidate(key);
+        publish(key);
+    }
+
+    /**
+     * 通知所有节点删除一级缓存
+     * @param key 为null时删除全部
+     */
+    private void publish(String key) {
+        CacheInvalidation invalidation = new CacheInvalidation(name, key);
+        stringRedisTemplate.convertAndSend(TwoLevelCacheManager.INVALIDATION_CHANNEL, JSON.toJSONString(invalidation));
+    }
+
+    /**
+     * redis中的key，与spring redis缓存的格式一致：缓存名称::key
+     */
+    private String getRedisKey(String key) {
+        return name + "::" + key;
+    }
+}
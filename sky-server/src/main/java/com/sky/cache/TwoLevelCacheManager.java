@@ -0,0 +1,121 @@
+package com.sky.cache;
+
+import com.alibaba.fastjson.JSON;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 两级缓存管理器，按缓存名称创建TwoLevelCache
+ * 同时监听一级缓存删除消息，删除本节点的一级缓存
+ * 指标 sky.cache.requests 按cache、tier(l1/l2)、result(hit/miss)统计
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+    public static final String INVALIDATION_CHANNEL = "sky:cache:invalidation";
+
+    public static final String METRIC_NAME = "sky.cache.requests";
+
+    //取出标签下的全部缓存key并删除标签
+    private static final DefaultRedisScript<List> POP_TAG_SCRIPT = new DefaultRedisScript<>(
+            "local members = redis.call('SMEMBERS', KEYS[1]) " +
+            "redis.call('UNLINK', KEYS[1]) " +
+            "return members", List.class);
+
+    private final ConcurrentMap<String, TwoLevelCache> cacheMap = new ConcurrentHashMap<>();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final MeterRegistry meterRegistry;
+
+    //一级缓存每个缓存名称最多缓存的数量
+    private final long localMaximumSize;
+
+    //一级缓存的有效期
+    private final Duration localTtl;
+
+    //二级缓存的有效期，为0时不过期
+    private final Duration redisTtl;
+
+    public TwoLevelCacheManager(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate,
+                                MeterRegistry meterRegistry, long localMaximumSize, Duration localTtl, Duration redisTtl) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.localMaximumSize = localMaximumSize;
+        this.localTtl = localTtl;
+        this.redisTtl = redisTtl;
+    }
+
+    @Override
+    public TwoLevelCache getCache(String name) {
+        return cacheMap.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(cacheMap.keySet());
+    }
+
+    /**
+     * 按标签删除缓存：取出并删除标签，用unlink删除标签下的缓存，并通知各节点删除一级缓存
+     * @param tags
+     */
+    public void invalidateTags(Collection<String> tags) {
+        for (String tag : tags) {
+            List<String> members = stringRedisTemplate.execute(POP_TAG_SCRIPT, Collections.singletonList(CacheTags.KEY_PREFIX + tag));
+            if (members == null || members.isEmpty()) {
+                continue;
+            }
+            stringRedisTemplate.unlink(members);
+            members.forEach(member -> {
+                //缓存在redis中的key为 缓存名称::key
+                int index = member.indexOf("::");
+                if (index > 0) {
+                    getCache(member.substring(0, index)).evictLocalAndPublish(member.substring(index + 2));
+                }
+            });
+            log.info("按标签{}删除缓存{}条", tag, members.size());
+        }
+    }
+
+    /**
+     * 收到一级缓存删除消息
+     * @param message
+     * @param pattern
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation = JSON.parseObject(new String(message.getBody(), StandardCharsets.UTF_8), CacheInvalidation.class);
+        TwoLevelCache cache = cacheMap.get(invalidation.getCacheName());
+        if (cache != null) {
+            log.debug("删除一级缓存：{}", invalidation);
+            cache.evictLocal(invalidation.getKey());
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache<String, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(localTtl)
+                .build();
+        return new TwoLevelCache(name, localCache, redisTemplate, stringRedisTemplate, redisTtl, meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.sky.config;
+
+import com.sky.cache.TwoLevelCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Spring Cache配置：caffeine一级缓存 + redis二级缓存
+ */
+@Configuration
+@Slf4j
+public class CacheConfiguration {
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisTemplate<String, Object> redisTemplate,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${sky.cache.local.maximum-size:1000}") long localMaximumSize,
+                                             @Value("${sky.cache.local.ttl-seconds:60}") long localTtlSeconds,
+                                             @Value("${sky.cache.redis.ttl-minutes:1440}") long redisTtlMinutes) {
+        log.info("开始创建两级缓存管理器");
+        return new TwoLevelCacheManager(redisTemplate, stringRedisTemplate, meterRegistry, localMaximumSize,
+                Duration.ofSeconds(localTtlSeconds), Duration.ofMinutes(redisTtlMinutes));
+    }
+
+    /**
+     * 订阅一级缓存删除消息
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
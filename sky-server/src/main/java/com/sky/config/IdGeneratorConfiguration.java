@@ -0,0 +1,32 @@
+package com.sky.config;
+
+import com.sky.properties.IdGeneratorProperties;
+import com.sky.task.WorkerIdLeaseTask;
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，用于创建雪花算法id生成器
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfiguration {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(IdGeneratorProperties idGeneratorProperties,
+                                                     WorkerIdLeaseTask workerIdLeaseTask) {
+        Long workerId = idGeneratorProperties.getWorkerId();
+        if (workerId != null) {
+            log.info("开始创建雪花算法id生成器，机器id：{}", workerId);
+            return new SnowflakeIdGenerator(workerId);
+        }
+        //未配置机器id时从redis中租用，并只在租约有效期内生成id
+        workerId = workerIdLeaseTask.acquire(SnowflakeIdGenerator.MAX_WORKER_ID, idGeneratorProperties.getLeaseTtl());
+        log.info("开始创建雪花算法id生成器，机器id：{}", workerId);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(workerId);
+        workerIdLeaseTask.start(generator);
+        return generator;
+    }
+}
@@ -1,22 +1,26 @@
 package com.sky.controller.admin;
 
 
+import com.sky.cache.CacheTags;
+import com.sky.cache.TwoLevelCacheManager;
 import com.sky.dto.DishDTO;
 import com.sky.dto.DishPageQueryDTO;
 import com.sky.entity.Dish;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.DishService;
+import com.sky.service.MenuSnapshotService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 菜品管理
@@ -31,16 +35,10 @@ public class DishController {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private TwoLevelCacheManager cacheManager;
 
-    /**
-     * 清理缓存数据
-     * @param pattern
-     */
-    private void clearCache(String pattern) {
-        Set keys = redisTemplate.keys(pattern);
-        redisTemplate.delete(keys);
-    }
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
 
     /**
      * 新增菜品
@@ -54,9 +52,9 @@ public class DishController {
         log.info("新增菜品：{}",dishDTO);
         dishService.saveWithFlavor(dishDTO);
         log.info("新增成功:{}",dishDTO);
-        //清理缓存数据
-        String key = "dish_"+dishDTO.getCategoryId();
-        clearCache(key);
+        //清理该分类的菜品缓存
+        cacheManager.invalidateTags(Collections.singletonList(CacheTags.category(dishDTO.getCategoryId())));
+        menuSnapshotService.changed();
         return Result.success();
     }
 
@@ -83,8 +81,9 @@ public class DishController {
     public Result delete(@RequestParam List<Long> ids) {
         log.info("菜品批量删除：{}", ids);
         dishService.deleteBatch(ids);
-        //将所有菜品缓存数据清理掉,删除所有以dish_开头的key
-        clearCache("dish_*");
+        //清理包含这些菜品的缓存
+        cacheManager.invalidateTags(ids.stream().map(CacheTags::dish).collect(Collectors.toList()));
+        menuSnapshotService.changed();
         return Result.success();
     }
 
@@ -111,8 +110,9 @@ public class DishController {
     public Result update(@RequestBody DishDTO dishDTO) {
         log.info("修改菜品:{}", dishDTO);
         dishService.updateWithFlavor(dishDTO);
-        //将所有菜品数据缓存数据清理掉,所有dish_开头的key
-        clearCache("dish_*");
+        //清理包含该菜品的缓存，菜品可能修改了分类，同时清理新分类的菜品缓存
+        cacheManager.invalidateTags(Arrays.asList(CacheTags.dish(dishDTO.getId()), CacheTags.category(dishDTO.getCategoryId())));
+        menuSnapshotService.changed();
         return Result.success();
     }
 
@@ -138,11 +138,11 @@ public class DishController {
     @PostMapping("/status/{status}")
     @ApiOperation("菜品起售停售")
     public Result<String> startOrStop(@PathVariable Integer status, Long id) {
-        dishService.startOrStop(status, id);
-
-        //将所有的菜品缓存数据清理掉，所有以dish_开头的key
-        clearCache("dish_*");
+        Long categoryId = dishService.startOrStop(status, id);
 
+        //停售时清理包含该菜品的缓存，起售时清理菜品所属分类的缓存
+        cacheManager.invalidateTags(Arrays.asList(CacheTags.dish(id), CacheTags.category(categoryId)));
+        menuSnapshotService.changed();
         return Result.success();
     }
 
@@ -3,6 +3,7 @@ package com.sky.controller.admin;
 import com.sky.dto.OrdersCancelDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.dto.OrdersRejectionDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -38,6 +39,19 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 订单搜索，游标分页
+     *
+     * @param ordersPageQueryDTO cursor为上一页返回的游标，withTotal为是否统计总数
+     * @return
+     */
+    @GetMapping("/conditionSearch/scroll")
+    @ApiOperation("订单搜索(游标分页)")
+    public Result<CursorPageResult> conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        CursorPageResult cursorPageResult = orderService.conditionSearchByCursor(ordersPageQueryDTO);
+        return Result.success(cursorPageResult);
+    }
+
     /**
      * 各个状态的订单数量统计
      *
@@ -2,8 +2,10 @@ package com.sky.controller.admin;
 
 
 import com.sky.result.Result;
+import com.sky.service.ReportExportService;
 import com.sky.service.ReportService;
 import com.sky.vo.OrderReportVO;
+import com.sky.vo.ReportExportJobVO;
 import com.sky.vo.SalesTop10ReportVO;
 import com.sky.vo.TurnoverReportVO;
 import com.sky.vo.UserReportVO;
@@ -13,10 +15,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 
 /**
@@ -30,6 +35,9 @@ public class ReportController {
     @Autowired
     private ReportService reportService;
 
+    @Autowired
+    private ReportExportService reportExportService;
+
     /**
      * 根据时间区间统计营业额
      * @param begin
@@ -101,5 +109,42 @@ public class ReportController {
     public void export(HttpServletResponse response){
         reportService.exportBusinessData(response);
     }
+
+    /**
+     * 提交运营数据报表导出任务，报表在后台生成
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/export/jobs")
+    @ApiOperation("提交运营数据报表导出任务")
+    public Result<ReportExportJobVO> submitExport(
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("提交运营数据报表导出任务：{}到{}", begin, end);
+        return Result.success(reportExportService.submit(begin, end));
+    }
+
+    /**
+     * 查询导出任务的状态
+     * @param id
+     * @return
+     */
+    @GetMapping("/export/jobs/{id}")
+    @ApiOperation("查询运营数据报表导出任务")
+    public Result<ReportExportJobVO> getExportJob(@PathVariable String id) {
+        return Result.success(reportExportService.getJob(id));
+    }
+
+    /**
+     * 下载导出任务生成的报表
+     * @param id
+     * @param response
+     */
+    @GetMapping("/export/jobs/{id}/file")
+    @ApiOperation("下载运营数据报表")
+    public void downloadExport(@PathVariable String id, HttpServletResponse response) throws IOException {
+        reportExportService.download(id, response);
+    }
     
 }
@@ -2,6 +2,7 @@ package com.sky.controller.admin;
 
 import com.sky.entity.Dish;
 import com.sky.result.Result;
+import com.sky.service.BusinessStatsService;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -11,11 +12,14 @@ import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 
@@ -30,6 +34,9 @@ public class WorkSpaceController {
     @Autowired
     private WorkspaceService workspaceService;
 
+    @Autowired
+    private BusinessStatsService businessStatsService;
+
     /**
      * 工作台今日数据查询
      * @return
@@ -68,4 +75,19 @@ public class WorkSpaceController {
         return Result.success(workspaceService.getSetmealOverView());
     }
 
+    /**
+     * 重算每日营业数据，用于历史数据回填，一次最多重算sky.stats.rebuild-max-days天
+     * @param begin
+     * @param end
+     * @return
+     */
+    @PostMapping("/rebuildStats")
+    @ApiOperation("重算每日营业数据")
+    public Result rebuildStats(@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate begin,
+                               @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate end) {
+        log.info("重算每日营业数据：{} 至 {}", begin, end);
+        businessStatsService.rebuild(begin, end);
+        return Result.success();
+    }
+
 }
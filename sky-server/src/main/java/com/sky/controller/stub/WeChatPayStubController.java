@@ -0,0 +1,68 @@
+package com.sky.controller.stub;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地模拟微信支付服务，用于离线压测下单和退款
+ * 开启方式：sky.wechat.stub-enabled=true，sky.wechat.api-base-url=http://localhost:8080/stub/wechat
+ */
+@RestController
+@RequestMapping("/stub/wechat")
+@ConditionalOnProperty(prefix = "sky.wechat", name = "stub-enabled", havingValue = "true")
+@Slf4j
+public class WeChatPayStubController {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    //模拟微信支付接口的响应耗时
+    @Value("${sky.wechat.stub.latency-ms:0}")
+    private long latencyMs;
+
+    /**
+     * 模拟jsapi下单，返回预支付交易会话标识
+     * @param body
+     * @return
+     */
+    @PostMapping("/v3/pay/transactions/jsapi")
+    public JSONObject jsapi(@RequestBody String body) throws InterruptedException {
+        simulateLatency();
+        JSONObject result = new JSONObject();
+        result.put("prepay_id", "wx" + System.currentTimeMillis() + sequence.incrementAndGet());
+        return result;
+    }
+
+    /**
+     * 模拟申请退款，返回退款处理中
+     * @param body
+     * @return
+     */
+    @PostMapping("/v3/refund/domestic/refunds")
+    public JSONObject refund(@RequestBody String body) throws InterruptedException {
+        simulateLatency();
+        JSONObject request = JSON.parseObject(body);
+        JSONObject result = new JSONObject();
+        result.put("refund_id", String.valueOf(sequence.incrementAndGet()));
+        result.put("out_refund_no", request.getString("out_refund_no"));
+        result.put("out_trade_no", request.getString("out_trade_no"));
+        result.put("channel", "ORIGINAL");
+        result.put("status", "PROCESSING");
+        result.put("amount", request.getJSONObject("amount"));
+        return result;
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        if (latencyMs > 0) {
+            Thread.sleep(latencyMs);
+        }
+    }
+}
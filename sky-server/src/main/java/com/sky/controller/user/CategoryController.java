@@ -1,8 +1,10 @@
 package com.sky.controller.user;
 
 import com.sky.entity.Category;
+import com.sky.menu.MenuSnapshot;
 import com.sky.result.Result;
 import com.sky.service.CategoryService;
+import com.sky.service.MenuSnapshotService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,6 +22,9 @@ public class CategoryController {
     @Autowired
     private CategoryService categoryService;
 
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
     /**
      * 查询分类
      * @param type
@@ -28,6 +33,10 @@ public class CategoryController {
     @GetMapping("/list")
     @ApiOperation("查询分类")
     public Result<List<Category>> list(Integer type) {
+        MenuSnapshot snapshot = menuSnapshotService.current();
+        if (snapshot != null) {
+            return Result.success(snapshot.getCategories(type));
+        }
         List<Category> list = categoryService.list(type);
         return Result.success(list);
     }
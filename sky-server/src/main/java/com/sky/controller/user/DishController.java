@@ -1,19 +1,30 @@
 package com.sky.controller.user;
 
+import com.sky.cache.CacheTags;
+import com.sky.cache.TwoLevelCache;
+import com.sky.cache.TwoLevelCacheManager;
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Dish;
+import com.sky.menu.EncodedResponse;
+import com.sky.menu.MenuResponseCache;
+import com.sky.menu.MenuSnapshot;
 import com.sky.result.Result;
 import com.sky.service.DishService;
+import com.sky.service.MenuSnapshotService;
 import com.sky.vo.DishVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.cache.Cache;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController("userDishController")
@@ -25,39 +36,53 @@ public class DishController {
     private DishService dishService;
 
     @Autowired
-    private RedisTemplate redisTemplate;
+    private TwoLevelCacheManager cacheManager;
+
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    @Autowired
+    private MenuResponseCache menuResponseCache;
 
     /**
      * 根据分类id查询菜品
+     * 直接写出按快照版本缓存的编码结果，客户端带着相同的ETag请求时返回304
      *
      * @param categoryId
-     * @return
      */
     @GetMapping("/list")
     @ApiOperation("根据分类id查询菜品")
-    public Result<List<DishVO>> list(Long categoryId) {
-//        构造redis中的key，规则：dish_分类Id
-        String key = "dish_" + categoryId;
-
-//        查询redis中是否存在菜品数据
-        List<DishVO> list = (List<DishVO>) redisTemplate.opsForValue().get(key);
-        if (list != null && list.size() > 0) {
-//            如果存在，直接返回，无需查询数据库
-            return Result.success(list);
-        }
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MenuSnapshot snapshot = menuSnapshotService.current();
+        EncodedResponse encoded = snapshot != null
+                ? menuResponseCache.get(snapshot, "dish:" + categoryId, () -> snapshot.getDishes(categoryId))
+                : menuResponseCache.encode(load(categoryId).getData());
+        encoded.writeTo(request, response);
+    }
 
+    /**
+     * 快照尚未建立时先查进程内缓存，再查redis
+     */
+    private Result<List<DishVO>> load(Long categoryId) {
+        TwoLevelCache cache = cacheManager.getCache("dishCache");
+        Cache.ValueWrapper valueWrapper = cache.get(categoryId);
+        if (valueWrapper != null) {
+            return (Result<List<DishVO>>) valueWrapper.get();
+        }
 
-//        如果不存在，查询数据库，将查询到的数据放入redis中
+//        如果不存在，查询数据库
         Dish dish = new Dish();
         dish.setCategoryId(categoryId);
         dish.setStatus(StatusConstant.ENABLE);//查询起售中的菜品
 
-        list = dishService.listWithFlavor(dish);
+        List<DishVO> list = dishService.listWithFlavor(dish);
+        Result<List<DishVO>> result = Result.success(list);
 
-//        将当前查询结果放入redis
-        redisTemplate.opsForValue().set(key, list);
-        return Result.success(list);
+//        放入缓存，并登记到分类和其中每个菜品的标签下，菜品或分类变更时按标签删除
+        List<String> tags = new ArrayList<>();
+        tags.add(CacheTags.category(categoryId));
+        list.forEach(dishVO -> tags.add(CacheTags.dish(dishVO.getId())));
+        cache.put(categoryId, result, tags);
+        return result;
     }
-
-
 }
@@ -2,6 +2,7 @@ package com.sky.controller.user;
 
 import com.sky.dto.OrdersPaymentDTO;
 import com.sky.dto.OrdersSubmitDTO;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.result.Result;
 import com.sky.service.OrderService;
@@ -67,6 +68,21 @@ public class OrderController {
         return Result.success(pageResult);
     }
 
+    /**
+     * 历史订单游标分页查询，用于下拉加载
+     *
+     * @param cursor   上一页返回的游标，为空时查询第一页
+     * @param pageSize
+     * @param status   订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+     * @return
+     */
+    @GetMapping("historyOrders/scroll")
+    @ApiOperation("历史订单游标分页查询")
+    public Result<CursorPageResult> scroll(String cursor, int pageSize, Integer status) {
+        CursorPageResult cursorPageResult = orderService.pageQueryForUserByCursor(cursor, pageSize, status);
+        return Result.success(cursorPageResult);
+    }
+
     /**
      * 查询订单详情
      * @param id
@@ -2,18 +2,24 @@ package com.sky.controller.user;
 
 import com.sky.constant.StatusConstant;
 import com.sky.entity.Setmeal;
+import com.sky.menu.EncodedResponse;
+import com.sky.menu.MenuResponseCache;
+import com.sky.menu.MenuSnapshot;
 import com.sky.result.Result;
+import com.sky.service.MenuSnapshotService;
 import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
 
 @RestController("userSetmealController")
@@ -23,22 +29,36 @@ public class SetmealController {
     @Autowired
     private SetmealService setmealService;
 
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    @Autowired
+    private MenuResponseCache menuResponseCache;
+
     /**
      * 条件查询
+     * 直接写出按快照版本缓存的编码结果，客户端带着相同的ETag请求时返回304
      *
      * @param categoryId
-     * @return
      */
     @GetMapping("/list")
     @ApiOperation("根据分类id查询套餐")
-    @Cacheable(cacheNames = "setmealCache",key = "#categoryId")//使用categoryId作为缓存键,使用redis进行缓存
-    public Result<List<Setmeal>> list(Long categoryId) {
+    public void list(Long categoryId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MenuSnapshot snapshot = menuSnapshotService.current();
+        EncodedResponse encoded = snapshot != null
+                ? menuResponseCache.get(snapshot, "setmeal:" + categoryId, () -> snapshot.getSetmeals(categoryId))
+                : menuResponseCache.encode(load(categoryId));
+        encoded.writeTo(request, response);
+    }
+
+    /**
+     * 快照尚未建立时查询数据库
+     */
+    private List<Setmeal> load(Long categoryId) {
         Setmeal setmeal = new Setmeal();
         setmeal.setCategoryId(categoryId);
         setmeal.setStatus(StatusConstant.ENABLE);
-
-        List<Setmeal> list = setmealService.list(setmeal);
-        return Result.success(list);
+        return setmealService.list(setmeal);
     }
 
     /**
@@ -50,7 +70,11 @@ public class SetmealController {
     @GetMapping("/dish/{id}")
     @ApiOperation("根据套餐id查询包含的菜品列表")
     public Result<List<DishItemVO>> dishList(@PathVariable("id") Long id) {
-        List<DishItemVO> list = setmealService.getDishItemById(id);
+        MenuSnapshot snapshot = menuSnapshotService.current();
+        List<DishItemVO> list = snapshot == null ? null : snapshot.getDishItems(id);
+        if (list == null) {
+            list = setmealService.getDishItemById(id);
+        }
         return Result.success(list);
     }
 }
@@ -0,0 +1,147 @@
+package com.sky.interceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sky.constant.JwtClaimsConstant;
+import com.sky.properties.JwtProperties;
+import com.sky.utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jwt令牌校验
+ * 签名密钥在启动时创建一次；校验通过的令牌按摘要缓存解析出的id，直到令牌过期，
+ * 同一令牌的后续请求不再重复验签和解析
+ */
+@Component
+@Slf4j
+public class JwtTokenVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Autowired
+    private JwtProperties jwtProperties;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sky.jwt.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    private Key adminKey;
+    private Key userKey;
+    private Cache<String, VerifiedToken> adminTokens;
+    private Cache<String, VerifiedToken> userTokens;
+
+    @PostConstruct
+    public void init() {
+        adminKey = JwtUtil.signingKey(jwtProperties.getAdminSecretKey());
+        userKey = JwtUtil.signingKey(jwtProperties.getUserSecretKey());
+        adminTokens = buildCache("jwt-admin");
+        userTokens = buildCache("jwt-user");
+    }
+
+    /**
+     * 校验管理端令牌
+     * @return 员工id
+     */
+    public Long verifyAdmin(String token) {
+        return verify(adminTokens, adminKey, JwtClaimsConstant.EMP_ID, token);
+    }
+
+    /**
+     * 校验用户端令牌
+     * @return 用户id
+     */
+    public Long verifyUser(String token) {
+        return verify(userTokens, userKey, JwtClaimsConstant.USER_ID, token);
+    }
+
+    /**
+     * 先查缓存，未命中时验签解析，成功后缓存到令牌过期时间；校验失败抛出jjwt的异常，不做缓存
+     */
+    private Long verify(Cache<String, VerifiedToken> cache, Key key, String claimName, String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("jwt令牌为空");
+        }
+        String digest = digest(token);
+        VerifiedToken verified = cache.getIfPresent(digest);
+        if (verified != null && verified.expiresAt > System.currentTimeMillis()) {
+            return verified.id;
+        }
+
+        Claims claims = JwtUtil.parseJWT(key, token);
+        Long id = Long.valueOf(claims.get(claimName).toString());
+        Date expiration = claims.getExpiration();
+        //没有过期时间的令牌不缓存，每次都重新校验
+        if (expiration != null) {
+            cache.put(digest, new VerifiedToken(id, expiration.getTime()));
+        }
+        return id;
+    }
+
+    private Cache<String, VerifiedToken> buildCache(String name) {
+        Cache<String, VerifiedToken> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long remaining = value.expiresAt - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        return cache;
+    }
+
+    /**
+     * 缓存键使用令牌的SHA-256摘要，不在内存中保留令牌原文
+     */
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA256.get();
+        sha256.reset();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static final class VerifiedToken {
+        private final Long id;
+        private final long expiresAt;
+
+        private VerifiedToken(Long id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.sky.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mybatis拦截器：按mapper语句记录耗时、返回或影响的行数和失败次数，并按采样率记录慢查询
+ * 指标：sky.sql.statement（耗时，outcome区分成功和失败）、sky.sql.rows（行数），通过/actuator/prometheus查看
+ */
+@Component
+@Slf4j
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class SqlMetricsInterceptor implements Interceptor {
+    //慢查询日志中单个参数最多输出的字符数
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    //每条语句的指标，避免每次执行都按标签查找
+    private final Map<String, StatementMeters> meters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sky.sql.slow-threshold-ms:200}")
+    private long slowThresholdMillis;
+
+    @Value("${sky.sql.slow-log-sample-rate:0.01}")
+    private double slowLogSampleRate;
+
+    //字符串参数可能是手机号、地址、openid等，默认只输出首尾字符和长度
+    @Value("${sky.sql.slow-log-mask-strings:true}")
+    private boolean maskStrings;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        StatementMeters statementMeters = meters.computeIfAbsent(ms.getId(), id -> new StatementMeters(ms));
+
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = invocation.proceed();
+        } catch (Throwable e) {
+            statementMeters.failure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        int rows = rows(result);
+        statementMeters.success.record(elapsed, TimeUnit.NANOSECONDS);
+        statementMeters.rows.record(rows);
+
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)
+                && ThreadLocalRandom.current().nextDouble() < slowLogSampleRate) {
+            Object parameter = args[1];
+            BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(parameter);
+            log.warn("慢查询：{}，耗时{}ms，行数{}，SQL：{}，参数：{}", statementMeters.statement,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), rows,
+                    boundSql.getSql().replaceAll("\\s+", " "), parameterValues(ms, boundSql, parameter));
+        }
+        return result;
+    }
+
+    /**
+     * 查询返回的行数或更新影响的行数
+     */
+    private int rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        return 0;
+    }
+
+    /**
+     * 按占位符顺序取出绑定的参数值，取值方式与mybatis设置参数时相同
+     */
+    private List<Object> parameterValues(MappedStatement ms, BoundSql boundSql, Object parameter) {
+        Configuration configuration = ms.getConfiguration();
+        TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            if (parameterMapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = parameterMapping.getProperty();
+            Object value;
+            if (boundSql.hasAdditionalParameter(property)) {
+                value = boundSql.getAdditionalParameter(property);
+            } else if (parameter == null) {
+                value = null;
+            } else if (typeHandlerRegistry.hasTypeHandler(parameter.getClass())) {
+                value = parameter;
+            } else {
+                if (metaObject == null) {
+                    metaObject = configuration.newMetaObject(parameter);
+                }
+                value = metaObject.getValue(property);
+            }
+            values.add(format(value));
+        }
+        return values;
+    }
+
+    /**
+     * 慢查询日志中参数的输出形式：字符串按配置脱敏，过长的值截断
+     */
+    private Object format(Object value) {
+        if (value instanceof CharSequence && maskStrings) {
+            return mask(value.toString());
+        }
+        String text = String.valueOf(value);
+        return text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : value;
+    }
+
+    /**
+     * 只保留首尾各一个字符，如 13812345678 输出为 1*********8(11)
+     */
+    private static String mask(String text) {
+        if (text.length() <= 2) {
+            return "**(" + text.length() + ")";
+        }
+        StringBuilder masked = new StringBuilder().append(text.charAt(0));
+        for (int i = 2; i < Math.min(text.length(), MAX_PARAMETER_LENGTH); i++) {
+            masked.append('*');
+        }
+        return masked.append(text.charAt(text.length() - 1)).append('(').append(text.length()).append(')').toString();
+    }
+
+    private class StatementMeters {
+        //去掉包名，如 OrderMapper.countByMap；分页插件生成的统计语句带有_COUNT后缀
+        private final String statement;
+
+        private final Timer success;
+
+        private final Timer failure;
+
+        private final DistributionSummary rows;
+
+        private StatementMeters(MappedStatement ms) {
+            String id = ms.getId();
+            int methodDot = id.lastIndexOf('.');
+            int classDot = methodDot > 0 ? id.lastIndexOf('.', methodDot - 1) : -1;
+            this.statement = id.substring(classDot + 1);
+            String type = ms.getSqlCommandType().name();
+            this.success = meterRegistry.timer("sky.sql.statement",
+                    "statement", statement, "type", type, "outcome", "success");
+            this.failure = meterRegistry.timer("sky.sql.statement",
+                    "statement", statement, "type", type, "outcome", "error");
+            this.rows = meterRegistry.summary("sky.sql.rows", "statement", statement, "type", type);
+        }
+    }
+}
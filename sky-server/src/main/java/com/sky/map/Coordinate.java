@@ -0,0 +1,47 @@
+package com.sky.map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 经纬度坐标(百度坐标系)
+ */
+@Data
+@AllArgsConstructor
+public class Coordinate implements Serializable {
+
+    //地球平均半径，单位米
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    //纬度
+    private final double lat;
+
+    //经度
+    private final double lng;
+
+    /**
+     * 两点间的球面直线距离(haversine公式)，单位米
+     * 实际的驾车距离不会小于这个距离
+     * @param from
+     * @param to
+     * @return
+     */
+    public static double distanceMeters(Coordinate from, Coordinate to) {
+        double lat1 = Math.toRadians(from.lat);
+        double lat2 = Math.toRadians(to.lat);
+        double sinDLat = Math.sin((lat2 - lat1) / 2);
+        double sinDLng = Math.sin(Math.toRadians(to.lng - from.lng) / 2);
+        double a = sinDLat * sinDLat + Math.cos(lat1) * Math.cos(lat2) * sinDLng * sinDLng;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * 百度地图接口使用的 纬度,经度 格式
+     * @return
+     */
+    public String toLatLng() {
+        return lat + "," + lng;
+    }
+}
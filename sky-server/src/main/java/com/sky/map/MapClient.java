@@ -0,0 +1,22 @@
+package com.sky.map;
+
+/**
+ * 地图服务：地址解析和驾车路线规划
+ */
+public interface MapClient {
+
+    /**
+     * 地址解析
+     * @param address 地址
+     * @return 坐标，解析失败时返回null
+     */
+    Coordinate geocode(String address);
+
+    /**
+     * 驾车路线规划
+     * @param origin 起点
+     * @param destination 终点
+     * @return 驾车距离，单位米，规划失败时返回null
+     */
+    Integer drivingDistance(Coordinate origin, Coordinate destination);
+}
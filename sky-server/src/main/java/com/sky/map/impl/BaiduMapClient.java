@@ -0,0 +1,83 @@
+package com.sky.map.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.sky.map.Coordinate;
+import com.sky.map.MapClient;
+import com.sky.utils.HttpClientUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 百度地图开放平台接口
+ */
+@Component
+@ConditionalOnProperty(name = "sky.map.client", havingValue = "baidu", matchIfMissing = true)
+@Slf4j
+public class BaiduMapClient implements MapClient {
+    //地址解析接口地址
+    public static final String GEOCODING = "https://api.map.baidu.com/geocoding/v3";
+
+    //驾车路线规划(轻量级)接口地址
+    public static final String DRIVING = "https://api.map.baidu.com/directionlite/v1/driving";
+
+    @Value("${sky.baidu.ak}")
+    private String ak;
+
+    @Override
+    public Coordinate geocode(String address) {
+        Map<String, String> map = new HashMap<>();
+        map.put("address", address);
+        map.put("output", "json");
+        map.put("ak", ak);
+
+        JSONObject jsonObject = parse(HttpClientUtil.doGet(GEOCODING, map));
+        if (jsonObject == null) {
+            log.warn("地址解析失败：{}", address);
+            return null;
+        }
+
+        // 数据解析
+        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
+        return new Coordinate(location.getDoubleValue("lat"), location.getDoubleValue("lng"));
+    }
+
+    @Override
+    public Integer drivingDistance(Coordinate origin, Coordinate destination) {
+        Map<String, String> map = new HashMap<>();
+        map.put("origin", origin.toLatLng());
+        map.put("destination", destination.toLatLng());
+        map.put("steps_info", "0");
+        map.put("ak", ak);
+
+        //路线规划
+        JSONObject jsonObject = parse(HttpClientUtil.doGet(DRIVING, map));
+        if (jsonObject == null) {
+            log.warn("配送线路规划失败：{} -> {}", origin.toLatLng(), destination.toLatLng());
+            return null;
+        }
+
+        JSONArray routes = jsonObject.getJSONObject("result").getJSONArray("routes");
+        if (routes == null || routes.isEmpty()) {
+            return null;
+        }
+        return routes.getJSONObject(0).getInteger("distance");
+    }
+
+    /**
+     * 解析响应，请求失败或status不为0时返回null
+     */
+    private JSONObject parse(String json) {
+        JSONObject jsonObject = JSON.parseObject(json);
+        if (jsonObject == null || !"0".equals(jsonObject.getString("status"))) {
+            return null;
+        }
+        return jsonObject;
+    }
+}
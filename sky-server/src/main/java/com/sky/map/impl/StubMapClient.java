@@ -0,0 +1,76 @@
+package com.sky.map.impl;
+
+import com.sky.map.Coordinate;
+import com.sky.map.MapClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.SplittableRandom;
+
+/**
+ * 离线测试用的模拟地图服务
+ * 店铺地址解析为中心点，其他地址按地址内容确定地分布在中心点周围，驾车距离按直线距离乘以绕路系数
+ */
+@Component
+@ConditionalOnProperty(name = "sky.map.client", havingValue = "stub")
+public class StubMapClient implements MapClient {
+    //每度纬度对应的距离，单位米
+    private static final double METERS_PER_DEGREE = 111320;
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+
+    @Value("${sky.map.stub.lat:31.2304}")
+    private double centerLat;
+
+    @Value("${sky.map.stub.lng:121.4737}")
+    private double centerLng;
+
+    //地址分布的最大半径，单位米
+    @Value("${sky.map.stub.radius-meters:8000}")
+    private double radiusMeters;
+
+    //驾车距离相对直线距离的绕路系数
+    @Value("${sky.map.stub.detour-factor:1.3}")
+    private double detourFactor;
+
+    //模拟接口的响应耗时，单位毫秒
+    @Value("${sky.map.stub.latency-ms:0}")
+    private long latencyMs;
+
+    @Override
+    public Coordinate geocode(String address) {
+        simulateLatency();
+        if (address == null) {
+            return null;
+        }
+        if (address.equals(shopAddress)) {
+            return new Coordinate(centerLat, centerLng);
+        }
+        //同一地址每次解析的结果相同
+        SplittableRandom random = new SplittableRandom(address.hashCode());
+        double distance = radiusMeters * Math.sqrt(random.nextDouble());
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double lat = centerLat + distance * Math.cos(bearing) / METERS_PER_DEGREE;
+        double lng = centerLng + distance * Math.sin(bearing) / (METERS_PER_DEGREE * Math.cos(Math.toRadians(centerLat)));
+        return new Coordinate(lat, lng);
+    }
+
+    @Override
+    public Integer drivingDistance(Coordinate origin, Coordinate destination) {
+        simulateLatency();
+        return (int) Math.round(Coordinate.distanceMeters(origin, destination) * detourFactor);
+    }
+
+    private void simulateLatency() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -8,6 +8,8 @@ import com.sky.entity.Category;
 import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Select;
 import java.util.List;
 
 @Mapper
@@ -20,6 +22,7 @@ public interface CategoryMapper {
             " VALUES" +
             " (#{type}, #{name}, #{sort}, #{status}, #{createTime}, #{updateTime}, #{createUser}, #{updateUser})")
     @AutoFill(value = OperationType.INSERT)
+    @Options(useGeneratedKeys = true, keyProperty = "id")
     void insert(Category category);
 
     /**
@@ -50,4 +53,18 @@ public interface CategoryMapper {
      */
     List<Category> list(Integer type);
 
+    /**
+     * 查询全部分类的id和名称，用于建立名称检索索引
+     * @return
+     */
+    @Select("select id, name from category")
+    List<Category> getAllNames();
+
+    /**
+     * 根据id查询分类的id和名称
+     * @param ids
+     * @return
+     */
+    List<Category> getNamesByIds(List<Long> ids);
+
 }
@@ -0,0 +1,65 @@
+package com.sky.mapper;
+
+import com.sky.entity.DailyBusinessStats;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Mapper
+public interface DailyBusinessStatsMapper {
+
+    /**
+     * 累加某一天的汇总数据，当天没有记录时插入
+     * @param delta 各字段的增量
+     */
+    void increment(DailyBusinessStats delta);
+
+    /**
+     * 逐行读取日期区间内的汇总数据，按日期升序交给handler处理，不在内存中保留整个结果集
+     * @param begin
+     * @param end
+     * @param handler
+     */
+    @Select("select * from daily_business_stats where stat_date between #{begin} and #{end} order by stat_date")
+    @Options(fetchSize = Integer.MIN_VALUE)
+    @ResultType(DailyBusinessStats.class)
+    void streamByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end, ResultHandler<DailyBusinessStats> handler);
+
+    /**
+     * 合计日期区间内的汇总数据
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Select("select ifnull(sum(order_count), 0) order_count, ifnull(sum(valid_order_count), 0) valid_order_count, " +
+            "ifnull(sum(turnover), 0) turnover, ifnull(sum(new_users), 0) new_users " +
+            "from daily_business_stats where stat_date between #{begin} and #{end}")
+    DailyBusinessStats sumByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 删除日期区间内的汇总数据
+     * @param begin
+     * @param end
+     */
+    @Delete("delete from daily_business_stats where stat_date between #{begin} and #{end}")
+    void deleteByDateRange(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+    /**
+     * 根据订单表重算时间区间内每天的订单数据
+     * @param map begin、end为时间区间，status为有效订单的状态
+     */
+    void rebuildOrderStats(Map map);
+
+    /**
+     * 根据用户表重算时间区间内每天的新增用户数
+     * @param map begin、end为时间区间
+     */
+    void rebuildUserStats(Map map);
+}
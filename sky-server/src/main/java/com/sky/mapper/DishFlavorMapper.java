@@ -15,4 +15,7 @@ public interface DishFlavorMapper {
 
 //    根据菜品id查询口味数据
     List<DishFlavor> getByDishId(Long id);
+
+//    根据多个菜品id批量查询口味数据
+    List<DishFlavor> getByDishIds(List<Long> dishIds);
 }
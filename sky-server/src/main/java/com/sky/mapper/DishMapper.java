@@ -84,6 +84,20 @@ public interface DishMapper {
      */
     Integer countByMap(Map map);
 
+    /**
+     * 查询全部菜品的id和名称，用于建立名称检索索引
+     * @return
+     */
+    @Select("select id, name from dish")
+    List<Dish> getAllNames();
+
+    /**
+     * 根据id查询菜品的id和名称
+     * @param ids
+     * @return
+     */
+    List<Dish> getNamesByIds(List<Long> ids);
+
 }
 
 
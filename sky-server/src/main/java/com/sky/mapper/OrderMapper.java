@@ -2,6 +2,7 @@ package com.sky.mapper;
 
 import com.github.pagehelper.Page;
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderDateStatDTO;
 import com.sky.dto.OrdersPageQueryDTO;
 import com.sky.entity.Orders;
 import org.apache.ibatis.annotations.Mapper;
@@ -41,6 +42,38 @@ public interface OrderMapper {
      */
     Page<Orders> pageQuery(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 游标分页条件查询，按下单时间和id倒序，从afterOrderTime和afterId之后查询limit条
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    List<Orders> pageQueryByCursor(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 统计满足分页条件的订单数量
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    Long countByQuery(OrdersPageQueryDTO ordersPageQueryDTO);
+
+    /**
+     * 按订单号前缀或后缀查询订单id
+     * @param number 订单号片段
+     * @param numberRev 倒序的订单号片段
+     * @param limit 前缀、后缀各最多查询的条数
+     * @return
+     */
+    List<Long> getIdsByNumber(@Param("number") String number, @Param("numberRev") String numberRev, @Param("limit") int limit);
+
+    /**
+     * 按手机号前缀或后缀查询订单id
+     * @param phone 手机号片段
+     * @param phoneRev 倒序的手机号片段
+     * @param limit 前缀、后缀各最多查询的条数
+     * @return
+     */
+    List<Long> getIdsByPhone(@Param("phone") String phone, @Param("phoneRev") String phoneRev, @Param("limit") int limit);
+
     /**
      * 根据id查询订单
      * @param id
@@ -62,6 +95,25 @@ public interface OrderMapper {
      */
     List<Orders> getByStatusAndOrderTime(@Param("status")Integer status, @Param("orderTime")LocalDateTime OrderTime);
 
+    /**
+     * 按id游标分批查询指定状态、下单时间早于orderTime的订单，并锁定查出的订单
+     * 只查询状态流转需要的id、状态、金额和下单时间
+     * @param status
+     * @param orderTime
+     * @param lastId 上一批最后一条订单的id，从头开始传0
+     * @param limit 每批的数量
+     * @return
+     */
+    List<Orders> getByStatusAndOrderTimeAfterId(@Param("status") Integer status, @Param("orderTime") LocalDateTime orderTime,
+                                               @Param("lastId") Long lastId, @Param("limit") Integer limit);
+
+    /**
+     * 批量修改订单状态，只修改仍处于原状态的订单
+     * @param map ids为订单id，fromStatus为原状态，toStatus为新状态，cancelReason、cancelTime为取消原因和时间
+     * @return 修改的行数
+     */
+    Integer updateStatusByIds(Map map);
+
     /**
      * 根据动态条件统计营业额
      * @param map
@@ -76,6 +128,13 @@ public interface OrderMapper {
      */
     Integer countByMap(Map map);
 
+    /**
+     * 按天分组统计时间区间内的订单总数、有效订单数和营业额
+     * @param map begin、end为时间区间，status为有效订单的状态
+     * @return
+     */
+    List<OrderDateStatDTO> getDateStats(Map map);
+
     /**
      * 查询商品销量排名
      * @param begin
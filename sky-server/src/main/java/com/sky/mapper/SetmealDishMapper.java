@@ -32,4 +32,11 @@ public interface SetmealDishMapper {
      * @return
      */
     List<SetmealDish> getBySetmealId(Long setmealId);
+
+    /**
+     * 批量查询多个套餐包含的菜品
+     * @param setmealIds
+     * @return
+     */
+    List<SetmealDish> getBySetmealIds(List<Long> setmealIds);
 }
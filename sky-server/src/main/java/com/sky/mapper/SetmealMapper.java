@@ -68,4 +68,18 @@ public interface SetmealMapper {
      * @return
      */
     Integer countByMap(Map map);
+
+    /**
+     * 查询全部套餐的id和名称，用于建立名称检索索引
+     * @return
+     */
+    @Select("select id, name from setmeal")
+    List<Setmeal> getAllNames();
+
+    /**
+     * 根据id查询套餐的id和名称
+     * @param ids
+     * @return
+     */
+    List<Setmeal> getNamesByIds(List<Long> ids);
 }
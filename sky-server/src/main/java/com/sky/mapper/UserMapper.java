@@ -1,11 +1,13 @@
 package com.sky.mapper;
 
 import com.sky.annotation.AutoFill;
+import com.sky.dto.UserDateStatDTO;
 import com.sky.entity.User;
 import com.sky.enumeration.OperationType;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
 import java.util.Map;
 
 @Mapper
@@ -37,4 +39,11 @@ public interface UserMapper {
      * @return
      */
     Integer countByMap(Map map);
+
+    /**
+     * 按天分组统计时间区间内的新增用户数量
+     * @param map begin、end为时间区间
+     * @return
+     */
+    List<UserDateStatDTO> getDateStats(Map map);
 }
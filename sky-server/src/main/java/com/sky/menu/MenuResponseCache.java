@@ -0,0 +1,87 @@
+package com.sky.menu;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sky.json.JacksonObjectMapper;
+import com.sky.result.Result;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 用户端菜单接口编码好的响应，按菜单快照版本缓存
+ * 快照重建后版本变化，旧版本的响应整体丢弃，下次请求时按新快照重新编码
+ */
+@Component
+public class MenuResponseCache {
+    //与消息转换器使用相同的序列化配置，保证输出的json不变
+    private final ObjectMapper objectMapper = new JacksonObjectMapper();
+
+    private volatile Entries entries = new Entries(-1);
+
+    //分类下没有数据或分类不存在时共用的空列表响应，不按请求的分类id缓存
+    private final EncodedResponse emptyList;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public MenuResponseCache() {
+        try {
+            emptyList = EncodedResponse.of(objectMapper.writeValueAsBytes(Result.success(Collections.emptyList())));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 查询快照对应的响应，不存在时编码并缓存
+     * 只缓存快照中有数据的分类，请求不存在的分类id时返回共用的空列表响应，缓存数量不会超过分类数量
+     * @param snapshot 本次请求读取的快照
+     * @param key 响应的键，如 dish:分类id
+     * @param data 从快照中读取响应数据
+     */
+    public EncodedResponse get(MenuSnapshot snapshot, String key, Supplier<? extends Collection<?>> data) {
+        Collection<?> list = data.get();
+        if (list.isEmpty()) {
+            return emptyList;
+        }
+        Entries current = entries;
+        if (current.version < snapshot.getVersion()) {
+            current = new Entries(snapshot.getVersion());
+            entries = current;
+        } else if (current.version > snapshot.getVersion()) {
+            //读到旧快照的请求，不再缓存旧版本的响应
+            return encode(list);
+        }
+        return current.responses.computeIfAbsent(key, k -> encode(list));
+    }
+
+    /**
+     * 将数据包装为成功的Result并编码
+     */
+    public EncodedResponse encode(Object data) {
+        meterRegistry.counter("sky.menu.response.encoded").increment();
+        try {
+            return EncodedResponse.of(objectMapper.writeValueAsBytes(Result.success(data)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Entries {
+        private final long version;
+
+        private final Map<String, EncodedResponse> responses = new ConcurrentHashMap<>();
+
+        private Entries(long version) {
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.sky.menu;
+
+import com.sky.entity.Category;
+import com.sky.entity.Setmeal;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户端菜单快照：启用的分类、起售的菜品及口味、起售的套餐及其包含的菜品
+ * 构建完成后不再修改，数据变化时整体重建并替换，读取时不需要加锁
+ * 其中的实体对象只在构建时创建，调用方不能修改
+ */
+public final class MenuSnapshot {
+    private final long version;
+
+    private final LocalDateTime builtAt;
+
+    private final List<Category> categories;
+
+    private final Map<Integer, List<Category>> categoriesByType;
+
+    private final Map<Long, List<DishVO>> dishesByCategory;
+
+    private final Map<Long, List<Setmeal>> setmealsByCategory;
+
+    private final Map<Long, List<DishItemVO>> dishItemsBySetmeal;
+
+    /**
+     * @param version 版本号，每次重建递增
+     * @param categories 启用的分类，按排序字段排好
+     * @param dishes 起售的菜品及口味
+     * @param setmeals 起售的套餐
+     * @param dishItems 套餐id对应的菜品选项
+     */
+    public MenuSnapshot(long version, List<Category> categories, List<DishVO> dishes,
+                        List<Setmeal> setmeals, Map<Long, List<DishItemVO>> dishItems) {
+        this.version = version;
+        this.builtAt = LocalDateTime.now();
+        this.categories = Collections.unmodifiableList(new ArrayList<>(categories));
+
+        Map<Integer, List<Category>> byType = new HashMap<>();
+        for (Category category : categories) {
+            byType.computeIfAbsent(category.getType(), type -> new ArrayList<>()).add(category);
+        }
+        this.categoriesByType = freeze(byType);
+
+        //按分类分组时保持原来的查询顺序
+        Map<Long, List<DishVO>> dishMap = new LinkedHashMap<>();
+        for (DishVO dish : dishes) {
+            dishMap.computeIfAbsent(dish.getCategoryId(), id -> new ArrayList<>()).add(dish);
+        }
+        this.dishesByCategory = freeze(dishMap);
+
+        Map<Long, List<Setmeal>> setmealMap = new LinkedHashMap<>();
+        for (Setmeal setmeal : setmeals) {
+            setmealMap.computeIfAbsent(setmeal.getCategoryId(), id -> new ArrayList<>()).add(setmeal);
+        }
+        this.setmealsByCategory = freeze(setmealMap);
+
+        this.dishItemsBySetmeal = freeze(new HashMap<>(dishItems));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * 根据类型查询分类
+     * @param type 为null时返回全部启用的分类
+     */
+    public List<Category> getCategories(Integer type) {
+        if (type == null) {
+            return categories;
+        }
+        return categoriesByType.getOrDefault(type, Collections.emptyList());
+    }
+
+    /**
+     * 根据分类id查询起售的菜品
+     */
+    public List<DishVO> getDishes(Long categoryId) {
+        return dishesByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    /**
+     * 根据分类id查询起售的套餐
+     */
+    public List<Setmeal> getSetmeals(Long categoryId) {
+        return setmealsByCategory.getOrDefault(categoryId, Collections.emptyList());
+    }
+
+    /**
+     * 根据套餐id查询包含的菜品
+     * @return 快照中没有这个套餐（如已停售）时返回null，调用方查询数据库
+     */
+    public List<DishItemVO> getDishItems(Long setmealId) {
+        return dishItemsBySetmeal.get(setmealId);
+    }
+
+    private static <K, V> Map<K, List<V>> freeze(Map<K, List<V>> map) {
+        map.replaceAll((key, list) -> Collections.unmodifiableList(list));
+        return Collections.unmodifiableMap(map);
+    }
+}
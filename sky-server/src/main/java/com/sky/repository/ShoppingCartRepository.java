@@ -0,0 +1,49 @@
+package com.sky.repository;
+
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 购物车数据存储
+ * 通过sky.cart.store选择实现：redis(默认)或mysql
+ */
+public interface ShoppingCartRepository {
+
+    /**
+     * 购物车中的商品数量+1，商品不在购物车中时加入
+     * @param userId
+     * @param shoppingCartDTO 商品
+     * @param itemLoader 商品不在购物车中时，用于加载商品名称、图片、价格等信息
+     */
+    void increment(Long userId, ShoppingCartDTO shoppingCartDTO, Supplier<ShoppingCart> itemLoader);
+
+    /**
+     * 购物车中的商品数量-1，减到0时移除
+     * @param userId
+     * @param shoppingCartDTO 商品
+     */
+    void decrement(Long userId, ShoppingCartDTO shoppingCartDTO);
+
+    /**
+     * 查询用户的购物车
+     * @param userId
+     * @return
+     */
+    List<ShoppingCart> list(Long userId);
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    void clean(Long userId);
+
+    /**
+     * 批量加入购物车，已在购物车中的商品累加数量
+     * @param userId
+     * @param shoppingCartList
+     */
+    void addAll(Long userId, List<ShoppingCart> shoppingCartList);
+}
@@ -0,0 +1,109 @@
+package com.sky.repository.impl;
+
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+import com.sky.mapper.ShoppingCartMapper;
+import com.sky.repository.ShoppingCartRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 基于shopping_cart表的购物车存储
+ */
+@Repository
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "mysql")
+public class MysqlShoppingCartRepository implements ShoppingCartRepository {
+    @Autowired
+    private ShoppingCartMapper shoppingCartMapper;
+
+    /**
+     * 购物车中的商品数量+1，商品不在购物车中时加入
+     * @param userId
+     * @param shoppingCartDTO
+     * @param itemLoader
+     */
+    @Override
+    public void increment(Long userId, ShoppingCartDTO shoppingCartDTO, Supplier<ShoppingCart> itemLoader) {
+        List<ShoppingCart> list = shoppingCartMapper.list(toCondition(userId, shoppingCartDTO));
+        if (list != null && list.size() > 0) {
+            //如果存在，则更新数量+1
+            ShoppingCart shoppingCart = list.get(0);
+            shoppingCart.setNumber(shoppingCart.getNumber() + 1);
+            shoppingCartMapper.updateNumberById(shoppingCart);
+        } else {
+            //如果不存在,插入数据
+            ShoppingCart shoppingCart = itemLoader.get();
+            shoppingCart.setNumber(1);
+            shoppingCartMapper.insert(shoppingCart);
+        }
+    }
+
+    /**
+     * 购物车中的商品数量-1，减到0时移除
+     * @param userId
+     * @param shoppingCartDTO
+     */
+    @Override
+    public void decrement(Long userId, ShoppingCartDTO shoppingCartDTO) {
+        List<ShoppingCart> list = shoppingCartMapper.list(toCondition(userId, shoppingCartDTO));
+        if (list != null && list.size() > 0) {
+            ShoppingCart shoppingCart = list.get(0);
+            Integer number = shoppingCart.getNumber();
+            if (number == 1) {
+                //份数为1，直接删除
+                shoppingCartMapper.deleteById(shoppingCart.getId());
+            } else {
+                shoppingCart.setNumber(number - 1);
+                shoppingCartMapper.updateNumberById(shoppingCart);
+            }
+        }
+    }
+
+    /**
+     * 查询用户的购物车
+     * @param userId
+     * @return
+     */
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        return shoppingCartMapper.list(ShoppingCart.builder().userId(userId).build());
+    }
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    @Override
+    public void clean(Long userId) {
+        shoppingCartMapper.deleteByUserId(userId);
+    }
+
+    /**
+     * 批量加入购物车
+     * @param userId
+     * @param shoppingCartList
+     */
+    @Override
+    public void addAll(Long userId, List<ShoppingCart> shoppingCartList) {
+        shoppingCartList.forEach(shoppingCart -> shoppingCart.setUserId(userId));
+        shoppingCartMapper.insertBatch(shoppingCartList);
+    }
+
+    /**
+     * 构造查询当前用户指定商品的条件
+     * @param userId
+     * @param shoppingCartDTO
+     * @return
+     */
+    private ShoppingCart toCondition(Long userId, ShoppingCartDTO shoppingCartDTO) {
+        ShoppingCart shoppingCart = new ShoppingCart();
+        BeanUtils.copyProperties(shoppingCartDTO, shoppingCart);
+        shoppingCart.setUserId(userId);
+        return shoppingCart;
+    }
+}
@@ -0,0 +1,168 @@
+package com.sky.repository.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.sky.dto.ShoppingCartDTO;
+import com.sky.entity.ShoppingCart;
+import com.sky.repository.ShoppingCartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 基于redis hash的购物车存储
+ * 每个用户一个hash，key为 sky:cart:{userId}
+ * 每个商品(菜品+口味 或 套餐)在hash中占两个field：
+ * {商品}:info 存放商品信息的json，{商品}:num 存放数量，两个field的增减都在lua脚本中完成，不会只剩其中一个
+ * 购物车只在下单时转为订单明细写入mysql
+ */
+@Repository
+@ConditionalOnProperty(name = "sky.cart.store", havingValue = "redis", matchIfMissing = true)
+public class RedisShoppingCartRepository implements ShoppingCartRepository {
+    public static final String KEY_PREFIX = "sky:cart:";
+
+    private static final String INFO_SUFFIX = ":info";
+    private static final String NUMBER_SUFFIX = ":num";
+
+    //数量-1，减到0时删除商品的两个field
+    private static final DefaultRedisScript<Long> DECREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) " +
+            "if n <= 0 then redis.call('HDEL', KEYS[1], ARGV[1], ARGV[2]) end " +
+            "return n", Long.class);
+
+    //数量增加指定值并重新设置过期时间；商品信息不存在时，传入了商品信息则写入并将数量设为增加的值，否则返回-1
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then " +
+            "  if ARGV[5] == '' then return -1 end " +
+            "  redis.call('HSET', KEYS[1], ARGV[1], ARGV[5], ARGV[2], ARGV[3]) " +
+            "  redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "  return tonumber(ARGV[3]) " +
+            "end " +
+            "local n = redis.call('HINCRBY', KEYS[1], ARGV[2], ARGV[3]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+            "return n", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //购物车的过期时间，单位天，每次修改购物车时重新计时
+    @Value("${sky.cart.ttl-days:7}")
+    private long ttlDays;
+
+    /**
+     * 购物车中的商品数量+1，商品不在购物车中时加入
+     * @param userId
+     * @param shoppingCartDTO
+     * @param itemLoader
+     */
+    @Override
+    public void increment(Long userId, ShoppingCartDTO shoppingCartDTO, Supplier<ShoppingCart> itemLoader) {
+        String field = getField(shoppingCartDTO.getDishId(), shoppingCartDTO.getSetmealId(), shoppingCartDTO.getDishFlavor());
+
+        //商品已在购物车中时直接累加；不在时查询商品信息后再写入
+        if (increment(userId, field, 1, "") < 0) {
+            increment(userId, field, 1, JSON.toJSONString(itemLoader.get()));
+        }
+    }
+
+    /**
+     * 购物车中的商品数量-1，减到0时移除
+     * @param userId
+     * @param shoppingCartDTO
+     */
+    @Override
+    public void decrement(Long userId, ShoppingCartDTO shoppingCartDTO) {
+        String field = getField(shoppingCartDTO.getDishId(), shoppingCartDTO.getSetmealId(), shoppingCartDTO.getDishFlavor());
+        stringRedisTemplate.execute(DECREMENT_SCRIPT, Collections.singletonList(getKey(userId)),
+                field + NUMBER_SUFFIX, field + INFO_SUFFIX);
+    }
+
+    /**
+     * 查询用户的购物车
+     * @param userId
+     * @return
+     */
+    @Override
+    public List<ShoppingCart> list(Long userId) {
+        HashOperations<String, String, String> hashOperations = stringRedisTemplate.opsForHash();
+        Map<String, String> entries = hashOperations.entries(getKey(userId));
+
+        List<ShoppingCart> list = new ArrayList<>();
+        entries.forEach((field, value) -> {
+            if (!field.endsWith(INFO_SUFFIX)) {
+                return;
+            }
+            String number = entries.get(field.substring(0, field.length() - INFO_SUFFIX.length()) + NUMBER_SUFFIX);
+            if (number == null || Integer.parseInt(number) <= 0) {
+                return;
+            }
+            ShoppingCart shoppingCart = JSON.parseObject(value, ShoppingCart.class);
+            shoppingCart.setNumber(Integer.parseInt(number));
+            list.add(shoppingCart);
+        });
+        //按加入购物车的时间排序
+        list.sort(Comparator.comparing(ShoppingCart::getCreateTime, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())));
+        return list;
+    }
+
+    /**
+     * 清空用户的购物车
+     * @param userId
+     */
+    @Override
+    public void clean(Long userId) {
+        stringRedisTemplate.delete(getKey(userId));
+    }
+
+    /**
+     * 批量加入购物车，已在购物车中的商品累加数量
+     * @param userId
+     * @param shoppingCartList
+     */
+    @Override
+    public void addAll(Long userId, List<ShoppingCart> shoppingCartList) {
+        shoppingCartList.forEach(shoppingCart -> {
+            shoppingCart.setUserId(userId);
+            String field = getField(shoppingCart.getDishId(), shoppingCart.getSetmealId(), shoppingCart.getDishFlavor());
+            increment(userId, field, shoppingCart.getNumber(), JSON.toJSONString(shoppingCart));
+        });
+    }
+
+    /**
+     * 原子地增加商品数量
+     * @param info 商品信息的json，商品不在购物车中时写入；传空字符串时不写入
+     * @return 增加后的数量，商品不在购物车中且未传入商品信息时返回-1
+     */
+    private long increment(Long userId, String field, int delta, String info) {
+        Long number = stringRedisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(getKey(userId)),
+                field + INFO_SUFFIX, field + NUMBER_SUFFIX, String.valueOf(delta),
+                String.valueOf(TimeUnit.DAYS.toSeconds(ttlDays)), info);
+        return number == null ? -1 : number;
+    }
+
+    private String getKey(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    /**
+     * 商品在hash中的field前缀：dish:{菜品id}:{口味} 或 setmeal:{套餐id}
+     */
+    private String getField(Long dishId, Long setmealId, String dishFlavor) {
+        if (dishId != null) {
+            return "dish:" + dishId + ":" + (dishFlavor == null ? "" : dishFlavor);
+        }
+        return "setmeal:" + setmealId;
+    }
+}
@@ -0,0 +1,162 @@
+package com.sky.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 名称的n-gram倒排索引，按名称包含的关键字检索id，结果与 name like '%关键字%' 相同
+ * 每个名称按单字和相邻两字建立倒排表；检索时取关键字各个gram中最短的倒排表，再逐个确认名称包含关键字
+ * 读多写少，用读写锁保护
+ */
+public class NameIndex {
+
+    //id -> 规范化后的名称
+    private final Map<Long, String> names = new HashMap<>();
+
+    //gram -> 名称中包含该gram的id
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或修改名称
+     * @param id
+     * @param name
+     */
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (name == null) {
+                return;
+            }
+            String normalized = normalize(name);
+            names.put(id, normalized);
+            for (String gram : indexGrams(normalized)) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除名称
+     * @param id
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索名称包含关键字的id
+     * @param keyword 关键字，不能为空
+     * @return
+     */
+    public List<Long> search(String keyword) {
+        String normalized = normalize(keyword);
+        lock.readLock().lock();
+        try {
+            Set<Long> candidates = null;
+            for (String gram : queryGrams(normalized)) {
+                Set<Long> posting = postings.get(gram);
+                if (posting == null) {
+                    return Collections.emptyList();
+                }
+                if (candidates == null || posting.size() < candidates.size()) {
+                    candidates = posting;
+                }
+            }
+            if (candidates == null) {
+                return Collections.emptyList();
+            }
+            List<Long> ids = new ArrayList<>();
+            for (Long id : candidates) {
+                if (names.get(id).contains(normalized)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中的名称数量
+     * @return
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long id) {
+        String old = names.remove(id);
+        if (old == null) {
+            return;
+        }
+        for (String gram : indexGrams(old)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * 建索引用的gram：所有单字和相邻两字
+     */
+    private static Set<String> indexGrams(String name) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i < name.length(); i++) {
+            grams.add(name.substring(i, i + 1));
+            if (i + 1 < name.length()) {
+                grams.add(name.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 检索用的gram：单字关键字用单字，否则用相邻两字
+     */
+    private static Set<String> queryGrams(String keyword) {
+        if (keyword.length() == 1) {
+            return Collections.singleton(keyword);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < keyword.length(); i++) {
+            grams.add(keyword.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    /**
+     * 全角转半角、字母转小写，与数据库不区分大小写的比较保持一致
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+    }
+}
@@ -0,0 +1,10 @@
+package com.sky.search;
+
+/**
+ * 名称检索索引的类型
+ */
+public enum NameIndexType {
+    DISH,
+    SETMEAL,
+    CATEGORY
+}
@@ -0,0 +1,45 @@
+package com.sky.service;
+
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日营业数据汇总的维护
+ */
+public interface BusinessStatsService {
+    /**
+     * 用户下单后，累加下单日期的订单总数
+     * @param orders
+     */
+    void onOrderSubmitted(Orders orders);
+
+    /**
+     * 订单状态变更后，按状态变化累加下单日期的有效订单数和营业额
+     * @param orderDB 变更前的订单
+     * @param status 变更后的状态
+     */
+    void onOrderStatusChanged(Orders orderDB, Integer status);
+
+    /**
+     * 一批订单变更为同一状态后，按下单日期合并累加有效订单数和营业额
+     * @param ordersDBList 变更前的订单
+     * @param status 变更后的状态
+     */
+    void onOrdersStatusChanged(List<Orders> ordersDBList, Integer status);
+
+    /**
+     * 新用户注册后，累加注册日期的新增用户数
+     * @param user
+     */
+    void onUserRegistered(User user);
+
+    /**
+     * 根据订单表和用户表重算日期区间内的汇总数据
+     * @param begin
+     * @param end
+     */
+    void rebuild(LocalDate begin, LocalDate end);
+}
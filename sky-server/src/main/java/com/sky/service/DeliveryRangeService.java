@@ -0,0 +1,10 @@
+package com.sky.service;
+
+public interface DeliveryRangeService {
+
+    /**
+     * 检查收货地址是否超出配送范围，超出时抛出OrderBusinessException
+     * @param address 收货地址
+     */
+    void checkOutOfRange(String address);
+}
@@ -59,6 +59,7 @@ public interface DishService {
      * 菜品起售停售
      * @param status
      * @param id
+     * @return 菜品所属的分类id，用于清理缓存
      */
-    void startOrStop(Integer status, Long id);
+    Long startOrStop(Integer status, Long id);
 }
@@ -0,0 +1,24 @@
+package com.sky.service;
+
+import com.sky.menu.MenuSnapshot;
+
+public interface MenuSnapshotService {
+
+    /**
+     * 当前的菜单快照
+     * @return 启动后尚未建立时返回null，调用方按原来的方式查询
+     */
+    MenuSnapshot current();
+
+    /**
+     * 菜品、套餐、分类修改后调用：在后台线程重建快照，并通知其他节点重建
+     * 短时间内多次调用只会合并为一次重建
+     */
+    void changed();
+
+    /**
+     * 在当前线程从数据库重建快照并替换
+     * @return 新的快照
+     */
+    MenuSnapshot rebuild();
+}
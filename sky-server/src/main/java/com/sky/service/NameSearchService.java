@@ -0,0 +1,29 @@
+package com.sky.service;
+
+import com.sky.search.NameIndexType;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface NameSearchService {
+
+    /**
+     * 检索名称包含关键字的菜品、套餐或分类id
+     * @param type 索引类型
+     * @param keyword 关键字
+     * @return id列表；关键字为空或索引尚未建立时返回null，调用方按原来的方式查询数据库
+     */
+    List<Long> search(NameIndexType type, String keyword);
+
+    /**
+     * 新增、修改、删除后刷新索引：事务提交后从数据库重新读取这些id的名称，并通知其他节点刷新
+     * @param type 索引类型
+     * @param ids 发生变化的id
+     */
+    void refresh(NameIndexType type, Collection<Long> ids);
+
+    /**
+     * 从数据库重新建立全部索引
+     */
+    void rebuild();
+}
@@ -1,6 +1,7 @@
 package com.sky.service;
 
 import com.sky.dto.*;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -37,6 +38,15 @@ public interface OrderService {
      */
     PageResult pageQueryForUser(int pageNum, int pageSize,Integer status);
 
+    /**
+     * 历史订单游标分页查询
+     * @param cursor 上一页返回的游标，为空时查询第一页
+     * @param pageSize
+     * @param status
+     * @return
+     */
+    CursorPageResult pageQueryForUserByCursor(String cursor, int pageSize, Integer status);
+
     /**
      * 查询订单详情
      * @param id
@@ -63,6 +73,13 @@ public interface OrderService {
      */
     PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO);
 
+    /**
+     * 订单搜索，游标分页
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO);
+
     /**
      * 各个状态的订单数量统计
      * @return
@@ -0,0 +1,45 @@
+package com.sky.service;
+
+import com.sky.vo.ReportExportJobVO;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface ReportExportService {
+    /**
+     * 提交运营数据报表导出任务，在后台线程中生成报表文件
+     * @param begin
+     * @param end
+     * @return
+     */
+    ReportExportJobVO submit(LocalDate begin, LocalDate end);
+
+    /**
+     * 查询导出任务
+     * @param id
+     * @return
+     */
+    ReportExportJobVO getJob(String id);
+
+    /**
+     * 下载已完成的导出任务生成的报表文件
+     * @param id
+     * @param response
+     */
+    void download(String id, HttpServletResponse response) throws IOException;
+
+    /**
+     * 生成日期区间内的运营数据报表，写入输出流
+     * @param begin
+     * @param end
+     * @param out
+     */
+    void writeBusinessData(LocalDate begin, LocalDate end, OutputStream out) throws IOException;
+
+    /**
+     * 删除已过保留时间的导出任务和报表文件
+     */
+    void cleanExpiredJobs();
+}
@@ -0,0 +1,16 @@
+package com.sky.service;
+
+public interface ShopService {
+
+    /**
+     * 设置店铺营业状态，并通知其他节点
+     * @param status 1营业中 0打烊中
+     */
+    void setStatus(Integer status);
+
+    /**
+     * 获取店铺营业状态，优先使用本地缓存
+     * @return 1营业中 0打烊中
+     */
+    Integer getStatus();
+}
@@ -5,7 +5,9 @@ import com.sky.vo.DishOverViewVO;
 import com.sky.vo.OrderOverViewVO;
 import com.sky.vo.SetmealOverViewVO;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.function.BiConsumer;
 
 public interface WorkspaceService {
     /**
@@ -16,6 +18,14 @@ public interface WorkspaceService {
      */
     BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end);
 
+    /**
+     * 按日期顺序逐天处理日期区间内的营业数据，不在内存中保留整个区间的数据
+     * @param begin
+     * @param end
+     * @param consumer 没有数据的日期各项为0
+     */
+    void streamDailyBusinessData(LocalDate begin, LocalDate end, BiConsumer<LocalDate, BusinessDataVO> consumer);
+
     /**
      * 查询订单管理数据
      * @return
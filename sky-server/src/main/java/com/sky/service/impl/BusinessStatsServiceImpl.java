@@ -0,0 +1,131 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.entity.DailyBusinessStats;
+import com.sky.entity.Orders;
+import com.sky.entity.User;
+import com.sky.exception.BusinessStatsException;
+import com.sky.mapper.DailyBusinessStatsMapper;
+import com.sky.service.BusinessStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class BusinessStatsServiceImpl implements BusinessStatsService {
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+
+    //一次最多重算的天数
+    @Value("${sky.stats.rebuild-max-days:366}")
+    private long rebuildMaxDays;
+
+    /**
+     * 用户下单后，累加下单日期的订单总数
+     * @param orders
+     */
+    @Override
+    public void onOrderSubmitted(Orders orders) {
+        DailyBusinessStats delta = emptyDelta(orders.getOrderTime().toLocalDate());
+        delta.setOrderCount(1);
+        dailyBusinessStatsMapper.increment(delta);
+    }
+
+    /**
+     * 订单状态变更后，按状态变化累加下单日期的有效订单数和营业额
+     * 订单总数在下单时已计入，只有进入或离开"已完成"状态才会影响汇总数据
+     * @param orderDB 变更前的订单
+     * @param status 变更后的状态
+     */
+    @Override
+    public void onOrderStatusChanged(Orders orderDB, Integer status) {
+        onOrdersStatusChanged(Collections.singletonList(orderDB), status);
+    }
+
+    /**
+     * 一批订单变更为同一状态后，按下单日期合并累加有效订单数和营业额，每个日期只写一次汇总表
+     * @param ordersDBList 变更前的订单
+     * @param status 变更后的状态
+     */
+    @Override
+    public void onOrdersStatusChanged(List<Orders> ordersDBList, Integer status) {
+        boolean isCompleted = Orders.COMPLETED.equals(status);
+        Map<LocalDate, DailyBusinessStats> deltaMap = new HashMap<>();
+        for (Orders orderDB : ordersDBList) {
+            boolean wasCompleted = Orders.COMPLETED.equals(orderDB.getStatus());
+            if (wasCompleted == isCompleted) {
+                continue;
+            }
+
+            BigDecimal amount = orderDB.getAmount() == null ? BigDecimal.ZERO : orderDB.getAmount();
+            DailyBusinessStats delta = deltaMap.computeIfAbsent(orderDB.getOrderTime().toLocalDate(), this::emptyDelta);
+            delta.setValidOrderCount(delta.getValidOrderCount() + (isCompleted ? 1 : -1));
+            delta.setTurnover(isCompleted ? delta.getTurnover().add(amount) : delta.getTurnover().subtract(amount));
+        }
+        deltaMap.values().forEach(dailyBusinessStatsMapper::increment);
+    }
+
+    /**
+     * 新用户注册后，累加注册日期的新增用户数
+     * @param user
+     */
+    @Override
+    public void onUserRegistered(User user) {
+        DailyBusinessStats delta = emptyDelta(user.getCreateTime().toLocalDate());
+        delta.setNewUsers(1);
+        dailyBusinessStatsMapper.increment(delta);
+    }
+
+    /**
+     * 根据订单表和用户表重算日期区间内的汇总数据
+     * @param begin
+     * @param end
+     */
+    @Override
+    @Transactional
+    public void rebuild(LocalDate begin, LocalDate end) {
+        //先校验日期区间，再删除旧数据
+        if (begin == null || end == null || begin.isAfter(end)
+                || ChronoUnit.DAYS.between(begin, end) >= rebuildMaxDays) {
+            throw new BusinessStatsException(MessageConstant.STATS_DATE_RANGE_ERROR);
+        }
+        log.info("重算每日营业数据：{} 至 {}", begin, end);
+        dailyBusinessStatsMapper.deleteByDateRange(begin, end);
+
+        Map map = new HashMap();
+        map.put("begin", LocalDateTime.of(begin, LocalTime.MIN));
+        map.put("end", LocalDateTime.of(end, LocalTime.MAX));
+        map.put("status", Orders.COMPLETED);
+        dailyBusinessStatsMapper.rebuildOrderStats(map);
+        dailyBusinessStatsMapper.rebuildUserStats(map);
+    }
+
+    /**
+     * 构造各字段增量都为0的汇总记录
+     * @param statDate
+     * @return
+     */
+    private DailyBusinessStats emptyDelta(LocalDate statDate) {
+        return DailyBusinessStats.builder()
+                .statDate(statDate)
+                .orderCount(0)
+                .validOrderCount(0)
+                .turnover(BigDecimal.ZERO)
+                .newUsers(0)
+                .updateTime(LocalDateTime.now())
+                .build();
+    }
+}
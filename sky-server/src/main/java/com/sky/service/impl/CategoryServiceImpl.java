@@ -13,12 +13,16 @@ import com.sky.mapper.CategoryMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
+import com.sky.search.NameIndexType;
 import com.sky.service.CategoryService;
+import com.sky.service.NameSearchService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -33,6 +37,8 @@ public class CategoryServiceImpl implements CategoryService {
     private DishMapper dishMapper;
     @Autowired
     private SetmealMapper setmealMapper;
+    @Autowired
+    private NameSearchService nameSearchService;
 
     /**
      * 新增分类
@@ -51,6 +57,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateUser(BaseContext.getCurrentId());
 
         categoryMapper.insert(category);
+        nameSearchService.refresh(NameIndexType.CATEGORY, Collections.singletonList(category.getId()));
     }
 
     /**
@@ -60,6 +67,16 @@ public class CategoryServiceImpl implements CategoryService {
      */
     public PageResult pageQuery(CategoryPageQueryDTO categoryPageQueryDTO)
     {
+        //按名称查询时先从名称索引中检索出id，只查询这些分类
+        List<Long> ids = nameSearchService.search(NameIndexType.CATEGORY, categoryPageQueryDTO.getName());
+        if (ids != null) {
+            if (ids.isEmpty()) {
+                return new PageResult(0, new ArrayList<>());
+            }
+            categoryPageQueryDTO.setIds(ids);
+            categoryPageQueryDTO.setName(null);
+        }
+
         PageHelper.startPage(categoryPageQueryDTO.getPage(), categoryPageQueryDTO.getPageSize());
         //下一条sql进行分页,自动加入limit关键字分页
         Page<Category> page = categoryMapper.pageQuery(categoryPageQueryDTO);
@@ -79,6 +96,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
         //删除分类数据
         categoryMapper.deleteById(id);
+        nameSearchService.refresh(NameIndexType.CATEGORY, Collections.singletonList(id));
     }
 
     /**
@@ -92,6 +110,7 @@ public class CategoryServiceImpl implements CategoryService {
 //        category.setUpdateTime(LocalDateTime.now());
 //        category.setUpdateUser(BaseContext.getCurrentId());
         categoryMapper.update(category);
+        nameSearchService.refresh(NameIndexType.CATEGORY, Collections.singletonList(category.getId()));
     }
 
     /**
@@ -0,0 +1,150 @@
+package com.sky.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sky.constant.MessageConstant;
+import com.sky.exception.OrderBusinessException;
+import com.sky.map.Coordinate;
+import com.sky.map.MapClient;
+import com.sky.service.DeliveryRangeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.time.Duration;
+
+/**
+ * 配送范围校验
+ * 店铺坐标只解析一次；收货地址坐标按规范化后的地址缓存；
+ * 先用直线距离判断，明显超出或明显在范围内时不再调用路线规划接口
+ */
+@Service
+@Slf4j
+public class DeliveryRangeServiceImpl implements DeliveryRangeService {
+    @Autowired
+    private MapClient mapClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${sky.shop.address}")
+    private String shopAddress;
+
+    //最大配送距离(驾车距离)，单位米
+    @Value("${sky.delivery.max-distance-meters:5000}")
+    private int maxDistanceMeters;
+
+    //直线距离不超过该值时直接视为在配送范围内，单位米
+    @Value("${sky.delivery.direct-accept-meters:2000}")
+    private int directAcceptMeters;
+
+    @Value("${sky.delivery.address-cache.maximum-size:10000}")
+    private long addressCacheMaximumSize;
+
+    @Value("${sky.delivery.address-cache.ttl-hours:24}")
+    private long addressCacheTtlHours;
+
+    private volatile Coordinate shopCoordinate;
+
+    private Cache<String, Coordinate> addressCoordinates;
+
+    @PostConstruct
+    public void init() {
+        addressCoordinates = Caffeine.newBuilder()
+                .maximumSize(addressCacheMaximumSize)
+                .expireAfterWrite(Duration.ofHours(addressCacheTtlHours))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, addressCoordinates, "delivery-address");
+    }
+
+    @Override
+    public void checkOutOfRange(String address) {
+        Coordinate shop = shopCoordinate();
+        Coordinate user = addressCoordinate(address);
+
+        //直线距离超出时驾车距离一定超出
+        double straightDistance = Coordinate.distanceMeters(shop, user);
+        if (straightDistance > maxDistanceMeters) {
+            record("straight-reject");
+            throw new OrderBusinessException(MessageConstant.OUT_OF_DELIVERY_RANGE);
+        }
+        if (straightDistance <= directAcceptMeters) {
+            record("straight-accept");
+            return;
+        }
+
+        //路线规划
+        Integer distance = mapClient.drivingDistance(shop, user);
+        if (distance == null) {
+            throw new OrderBusinessException(MessageConstant.DELIVERY_ROUTE_FAILED);
+        }
+        if (distance > maxDistanceMeters) {
+            //配送距离超过最大配送距离
+            record("route-reject");
+            throw new OrderBusinessException(MessageConstant.OUT_OF_DELIVERY_RANGE);
+        }
+        record("route-accept");
+    }
+
+    /**
+     * 店铺坐标，第一次使用时解析，解析失败时下次再试
+     * @return
+     */
+    private Coordinate shopCoordinate() {
+        Coordinate coordinate = shopCoordinate;
+        if (coordinate == null) {
+            coordinate = mapClient.geocode(shopAddress);
+            if (coordinate == null) {
+                throw new OrderBusinessException(MessageConstant.SHOP_ADDRESS_PARSE_FAILED);
+            }
+            log.info("店铺坐标：{}", coordinate.toLatLng());
+            shopCoordinate = coordinate;
+        }
+        return coordinate;
+    }
+
+    /**
+     * 收货地址坐标，解析失败的地址不缓存
+     * @param address
+     * @return
+     */
+    private Coordinate addressCoordinate(String address) {
+        String key = normalize(address);
+        if (key.isEmpty()) {
+            throw new OrderBusinessException(MessageConstant.ADDRESS_PARSE_FAILED);
+        }
+        Coordinate coordinate = addressCoordinates.get(key, k -> mapClient.geocode(address));
+        if (coordinate == null) {
+            throw new OrderBusinessException(MessageConstant.ADDRESS_PARSE_FAILED);
+        }
+        return coordinate;
+    }
+
+    /**
+     * 规范化地址：全角转半角、去掉空白、字母转小写，写法略有不同的同一地址共用缓存
+     */
+    static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(address, Normalizer.Form.NFKC);
+        StringBuilder builder = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                builder.append(Character.toLowerCase(c));
+            }
+        }
+        return builder.toString();
+    }
+
+    private void record(String decision) {
+        meterRegistry.counter("sky.delivery.range.checks", "decision", decision).increment();
+    }
+}
@@ -11,12 +11,15 @@ import com.sky.entity.DishFlavor;
 import com.sky.entity.Setmeal;
 import com.sky.entity.SetmealDish;
 import com.sky.exception.DeletionNotAllowedException;
+import com.sky.exception.DishBusinessException;
 import com.sky.mapper.DishFlavorMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealDishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
+import com.sky.search.NameIndexType;
 import com.sky.service.DishService;
+import com.sky.service.NameSearchService;
 import com.sky.vo.DishVO;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +27,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class DishServiceImpl implements DishService {
@@ -40,6 +46,9 @@ public class DishServiceImpl implements DishService {
     @Autowired
     private SetmealMapper setmealMapper;
 
+    @Autowired
+    private NameSearchService nameSearchService;
+
     /**
      * 新增菜品
      * @param dishDTO
@@ -62,6 +71,7 @@ public class DishServiceImpl implements DishService {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dishId));
             dishFlavorMapper.insertBatch(flavors);
         }
+        nameSearchService.refresh(NameIndexType.DISH, Collections.singletonList(dishId));
     }
 
     /**
@@ -72,8 +82,24 @@ public class DishServiceImpl implements DishService {
     @Override
     public PageResult pageQuery(DishPageQueryDTO dishPageQueryDTO)
     {
+        //按名称查询时先从名称索引中检索出id，只查询这些菜品
+        List<Long> ids = nameSearchService.search(NameIndexType.DISH, dishPageQueryDTO.getName());
+        if (ids != null) {
+            if (ids.isEmpty()) {
+                return new PageResult(0, new ArrayList<>());
+            }
+            dishPageQueryDTO.setIds(ids);
+            dishPageQueryDTO.setName(null);
+        }
+
         PageHelper.startPage(dishPageQueryDTO.getPage(),dishPageQueryDTO.getPageSize());
         Page<DishVO> page = dishMapper.pageQuery(dishPageQueryDTO);
+
+        //需要口味时，一次查询出当前页所有菜品的口味
+        if (Boolean.TRUE.equals(dishPageQueryDTO.getWithFlavors()) && page.size() > 0) {
+            Map<Long, List<DishFlavor>> flavorMap = getFlavorMap(page.stream().map(DishVO::getId).collect(Collectors.toList()));
+            page.forEach(dishVO -> dishVO.setFlavors(flavorMap.getOrDefault(dishVO.getId(), new ArrayList<>())));
+        }
         return new PageResult(page.getTotal(),page.getResult());
     }
 
@@ -104,6 +130,7 @@ public class DishServiceImpl implements DishService {
         ids.forEach(dishId -> {
             dishFlavorMapper.deleteByDishId(dishId);
         });
+        nameSearchService.refresh(NameIndexType.DISH, ids);
 
     }
 
@@ -139,6 +166,7 @@ public class DishServiceImpl implements DishService {
             flavors.forEach(dishFlavor -> dishFlavor.setDishId(dish.getId()));
             dishFlavorMapper.insertBatch(flavors);
         }
+        nameSearchService.refresh(NameIndexType.DISH, Collections.singletonList(dish.getId()));
     }
 
     /**
@@ -163,29 +191,47 @@ public class DishServiceImpl implements DishService {
         List<Dish> dishList = dishMapper.list(dish);
 
         ArrayList<DishVO> dishVOArrayList = new ArrayList<>();
+        if (dishList == null || dishList.isEmpty()) {
+            return dishVOArrayList;
+        }
+
+//        一次查询出所有菜品的口味，再按菜品id分组
+        Map<Long, List<DishFlavor>> flavorMap = getFlavorMap(dishList.stream().map(Dish::getId).collect(Collectors.toList()));
 
         dishList.forEach(d->{
             DishVO dishVO = new DishVO();
             BeanUtils.copyProperties(d, dishVO);
-
-//            根据菜品id查询对应的口味
-            List<DishFlavor> flavors = dishFlavorMapper.getByDishId(d.getId());
-
-            dishVO.setFlavors(flavors);
+            dishVO.setFlavors(flavorMap.getOrDefault(d.getId(), new ArrayList<>()));
             dishVOArrayList.add(dishVO);
         });
 
         return dishVOArrayList;
     }
 
+    /**
+     * 批量查询菜品的口味，并按菜品id分组
+     * @param dishIds
+     * @return
+     */
+    private Map<Long, List<DishFlavor>> getFlavorMap(List<Long> dishIds) {
+        List<DishFlavor> flavors = dishFlavorMapper.getByDishIds(dishIds);
+        return flavors.stream().collect(Collectors.groupingBy(DishFlavor::getDishId));
+    }
+
     /**
      * 菜品起售停售
      * @param status
      * @param id
+     * @return 菜品所属的分类id
      */
     @Override
     @Transactional
-    public void startOrStop(Integer status, Long id) {
+    public Long startOrStop(Integer status, Long id) {
+        Dish dishDB = dishMapper.getById(id);
+        if (dishDB == null) {
+            throw new DishBusinessException(MessageConstant.DISH_NOT_FOUND);
+        }
+
         Dish dish = Dish.builder().id(id).status(status).build();
         dishMapper.update(dish);
 
@@ -201,6 +247,7 @@ public class DishServiceImpl implements DishService {
                 }
             }
         }
+        return dishDB.getCategoryId();
     }
 
 }
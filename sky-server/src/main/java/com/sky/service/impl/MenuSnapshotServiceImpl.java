@@ -0,0 +1,198 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.DishFlavor;
+import com.sky.entity.Setmeal;
+import com.sky.entity.SetmealDish;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishFlavorMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealDishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.menu.MenuSnapshot;
+import com.sky.service.MenuSnapshotService;
+import com.sky.vo.DishItemVO;
+import com.sky.vo.DishVO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户端菜单快照
+ * 启动时建立，管理端修改菜品、套餐、分类后在后台线程重建并整体替换，并通过redis消息通知其他节点重建
+ */
+@Service
+@Slf4j
+public class MenuSnapshotServiceImpl implements MenuSnapshotService, MessageListener {
+    public static final String CHANGED_CHANNEL = "sky:menu:changed";
+
+    //消息中标识本节点，收到自己发出的消息时不重复重建
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final AtomicReference<MenuSnapshot> current = new AtomicReference<>();
+
+    //已提交但还未开始的重建，存在时不再提交新的重建
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "menu-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long version;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private DishMapper dishMapper;
+
+    @Autowired
+    private DishFlavorMapper dishFlavorMapper;
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    @Autowired
+    private SetmealDishMapper setmealDishMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(CHANGED_CHANNEL));
+        meterRegistry.gauge("sky.menu.snapshot.version", current,
+                ref -> ref.get() == null ? 0 : ref.get().getVersion());
+    }
+
+    @Override
+    public MenuSnapshot current() {
+        return current.get();
+    }
+
+    @Override
+    public void changed() {
+        requestRebuild();
+        try {
+            stringRedisTemplate.convertAndSend(CHANGED_CHANNEL, nodeId);
+        } catch (Exception e) {
+            log.error("发送菜单变更消息失败", e);
+        }
+    }
+
+    @Override
+    public synchronized MenuSnapshot rebuild() {
+        long start = System.nanoTime();
+
+        List<Category> categories = categoryMapper.list(null);
+
+        //查询全部菜品，起售的放入快照，套餐中的菜品图片和描述也从这里取
+        List<Dish> allDishes = dishMapper.list(new Dish());
+        Map<Long, Dish> dishMap = allDishes.stream().collect(Collectors.toMap(Dish::getId, Function.identity()));
+        List<Dish> enabledDishes = allDishes.stream()
+                .filter(dish -> StatusConstant.ENABLE.equals(dish.getStatus()))
+                .collect(Collectors.toList());
+        Map<Long, List<DishFlavor>> flavorMap = enabledDishes.isEmpty() ? Collections.emptyMap()
+                : dishFlavorMapper.getByDishIds(enabledDishes.stream().map(Dish::getId).collect(Collectors.toList()))
+                        .stream().collect(Collectors.groupingBy(DishFlavor::getDishId));
+        List<DishVO> dishes = new ArrayList<>(enabledDishes.size());
+        for (Dish dish : enabledDishes) {
+            DishVO dishVO = new DishVO();
+            BeanUtils.copyProperties(dish, dishVO);
+            dishVO.setFlavors(flavorMap.getOrDefault(dish.getId(), new ArrayList<>()));
+            dishes.add(dishVO);
+        }
+
+        Setmeal condition = new Setmeal();
+        condition.setStatus(StatusConstant.ENABLE);
+        List<Setmeal> setmeals = setmealMapper.list(condition);
+        Map<Long, List<DishItemVO>> dishItems = new HashMap<>();
+        if (!setmeals.isEmpty()) {
+            setmeals.forEach(setmeal -> dishItems.put(setmeal.getId(), new ArrayList<>()));
+            List<SetmealDish> setmealDishes = setmealDishMapper.getBySetmealIds(
+                    setmeals.stream().map(Setmeal::getId).collect(Collectors.toList()));
+            for (SetmealDish setmealDish : setmealDishes) {
+                Dish dish = dishMap.get(setmealDish.getDishId());
+                dishItems.get(setmealDish.getSetmealId()).add(DishItemVO.builder()
+                        .name(setmealDish.getName())
+                        .copies(setmealDish.getCopies())
+                        .image(dish == null ? null : dish.getImage())
+                        .description(dish == null ? null : dish.getDescription())
+                        .build());
+            }
+        }
+
+        MenuSnapshot snapshot = new MenuSnapshot(++version, categories, dishes, setmeals, dishItems);
+        current.set(snapshot);
+        meterRegistry.timer("sky.menu.snapshot.rebuild").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.info("菜单快照已重建：版本{}，分类{}个，菜品{}个，套餐{}个",
+                snapshot.getVersion(), categories.size(), dishes.size(), setmeals.size());
+        return snapshot;
+    }
+
+    /**
+     * 其他节点修改后发来的变更消息，内容为发送节点的id
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (!nodeId.equals(new String(message.getBody(), StandardCharsets.UTF_8))) {
+            requestRebuild();
+        }
+    }
+
+    /**
+     * 提交后台重建；重建开始前收到的多次变更只重建一次，重建开始后的变更会再重建一次
+     */
+    private void requestRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (Exception e) {
+                    //重建失败时继续使用旧的快照，定时重建时会修正
+                    log.error("重建菜单快照失败", e);
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdown();
+    }
+}
@@ -0,0 +1,203 @@
+package com.sky.service.impl;
+
+import com.sky.entity.Category;
+import com.sky.entity.Dish;
+import com.sky.entity.Setmeal;
+import com.sky.mapper.CategoryMapper;
+import com.sky.mapper.DishMapper;
+import com.sky.mapper.SetmealMapper;
+import com.sky.search.NameIndex;
+import com.sky.search.NameIndexType;
+import com.sky.service.NameSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 菜品、套餐、分类名称的进程内检索
+ * 启动时建立索引，管理端修改后按id刷新，并通过redis消息通知其他节点刷新
+ */
+@Service
+@Slf4j
+public class NameSearchServiceImpl implements NameSearchService, MessageListener {
+    public static final String REFRESH_CHANNEL = "sky:search:refresh";
+
+    //消息中标识本节点，收到自己发出的消息时不重复刷新
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<NameIndexType, NameIndex> indexes = new ConcurrentHashMap<>();
+
+    //正在重建的索引类型 -> 重建期间刷新过的id，新索引替换旧索引后重新刷新这些id，避免刷新只作用在被丢弃的旧索引上
+    private final Map<NameIndexType, Set<Long>> changedDuringRebuild = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DishMapper dishMapper;
+
+    @Autowired
+    private SetmealMapper setmealMapper;
+
+    @Autowired
+    private CategoryMapper categoryMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(REFRESH_CHANNEL));
+    }
+
+    @Override
+    public List<Long> search(NameIndexType type, String keyword) {
+        if (keyword == null || keyword.isEmpty()) {
+            return null;
+        }
+        NameIndex index = indexes.get(type);
+        return index == null ? null : index.search(keyword);
+    }
+
+    @Override
+    public void refresh(NameIndexType type, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        List<Long> changedIds = new ArrayList<>(ids);
+        Runnable task = () -> {
+            apply(type, changedIds);
+            stringRedisTemplate.convertAndSend(REFRESH_CHANNEL,
+                    nodeId + "|" + type + "|" + changedIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        };
+        //在事务中修改时，等提交后再读取，否则读到的还是修改前的数据
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runQuietly(task);
+                }
+            });
+        } else {
+            runQuietly(task);
+        }
+    }
+
+    @Override
+    public synchronized void rebuild() {
+        for (NameIndexType type : NameIndexType.values()) {
+            Set<Long> changed = ConcurrentHashMap.newKeySet();
+            changedDuringRebuild.put(type, changed);
+            try {
+                NameIndex index = new NameIndex();
+                load(type, null).forEach(index::put);
+                indexes.put(type, index);
+            } finally {
+                changedDuringRebuild.remove(type);
+            }
+            //读取全部名称之后、替换之前提交的修改，在新索引上重新刷新
+            if (!changed.isEmpty()) {
+                apply(type, new ArrayList<>(changed));
+            }
+            log.info("名称检索索引已建立：{}，共{}条", type, indexes.get(type).size());
+        }
+    }
+
+    /**
+     * 其他节点修改后发来的刷新消息，格式：节点id|类型|id,id
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : parts[2].split(",")) {
+            ids.add(Long.valueOf(id));
+        }
+        runQuietly(() -> apply(NameIndexType.valueOf(parts[1]), ids));
+    }
+
+    /**
+     * 从数据库读取这些id当前的名称，已删除的从索引中移除
+     */
+    private void apply(NameIndexType type, List<Long> ids) {
+        //先登记到正在进行的重建中，再取当前索引：取到旧索引时，重建完成后会在新索引上再刷新一次
+        Set<Long> changed = changedDuringRebuild.get(type);
+        if (changed != null) {
+            changed.addAll(ids);
+        }
+        NameIndex index = indexes.get(type);
+        if (index == null) {
+            return;
+        }
+        Map<Long, String> names = load(type, ids);
+        for (Long id : ids) {
+            String name = names.get(id);
+            if (name == null) {
+                index.remove(id);
+            } else {
+                index.put(id, name);
+            }
+        }
+    }
+
+    /**
+     * 查询id和名称
+     * @param ids 为null时查询全部
+     */
+    private Map<Long, String> load(NameIndexType type, List<Long> ids) {
+        Map<Long, String> names = new HashMap<>();
+        switch (type) {
+            case DISH:
+                for (Dish dish : ids == null ? dishMapper.getAllNames() : dishMapper.getNamesByIds(ids)) {
+                    names.put(dish.getId(), dish.getName());
+                }
+                break;
+            case SETMEAL:
+                for (Setmeal setmeal : ids == null ? setmealMapper.getAllNames() : setmealMapper.getNamesByIds(ids)) {
+                    names.put(setmeal.getId(), setmeal.getName());
+                }
+                break;
+            case CATEGORY:
+                for (Category category : ids == null ? categoryMapper.getAllNames() : categoryMapper.getNamesByIds(ids)) {
+                    names.put(category.getId(), category.getName());
+                }
+                break;
+            default:
+                break;
+        }
+        return names;
+    }
+
+    /**
+     * 刷新失败不影响业务操作，定时重建索引时会修正
+     */
+    private void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (Exception e) {
+            log.error("刷新名称检索索引失败", e);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.sky.service.impl;
 
 import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
@@ -13,9 +12,15 @@ import com.sky.exception.AddressBookBusinessException;
 import com.sky.exception.OrderBusinessException;
 import com.sky.exception.ShoppingCartBusinessException;
 import com.sky.mapper.*;
+import com.sky.repository.ShoppingCartRepository;
+import com.sky.result.CursorPageResult;
 import com.sky.result.PageResult;
+import com.sky.service.BusinessStatsService;
+import com.sky.service.DeliveryRangeService;
 import com.sky.service.OrderService;
-import com.sky.utils.HttpClientUtil;
+import com.sky.task.OrderTimeoutTask;
+import com.sky.utils.OrderCursor;
+import com.sky.utils.SnowflakeIdGenerator;
 import com.sky.utils.WeChatPayUtil;
 import com.sky.vo.OrderPaymentVO;
 import com.sky.vo.OrderStatisticsVO;
@@ -51,7 +56,7 @@ public class OrderServiceImpl implements OrderService {
     private OrderDetailMapper orderDetailMapper;
 
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartRepository shoppingCartRepository;
 
     @Autowired
     private AddressBookMapper addressBookMapper;
@@ -62,15 +67,32 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private WeChatPayUtil weChatPayUtil;
 
-    @Value("${sky.shop.address}")
-    private String shopAddress;
+    @Autowired
+    private SnowflakeIdGenerator snowflakeIdGenerator;
+
+    @Autowired
+    private DeliveryRangeService deliveryRangeService;
 
-    @Value("${sky.baidu.ak}")
-    private String ak;
+    //下单时是否校验配送范围
+    @Value("${sky.delivery.check-enabled:false}")
+    private boolean deliveryCheckEnabled;
 
     @Autowired
     private WebSocketServer webSocketServer;
 
+    @Autowired
+    private BusinessStatsService businessStatsService;
+
+    @Autowired
+    private OrderTimeoutTask orderTimeoutTask;
+
+    //游标分页每页最多的订单数
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    //按订单号、手机号搜索时，先查出订单id再分页的最多匹配数
+    @Value("${sky.order.search.max-matches:1000}")
+    private int maxSearchMatches;
+
     /**
      * 用户下单
      *
@@ -85,17 +107,14 @@ public class OrderServiceImpl implements OrderService {
         }
 
         //检查用户的收货地址是否超出配送范围
-        //由于未注册baidu api,暂时不作查询
-//        checkOutOfRange(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+        if (deliveryCheckEnabled) {
+            deliveryRangeService.checkOutOfRange(addressBook.getCityName() + addressBook.getDistrictName() + addressBook.getDetail());
+        }
 
         Long currentId = BaseContext.getCurrentId();
 
-        ShoppingCart shoppingCart = new ShoppingCart();
-        //只查询当前用户数据
-        shoppingCart.setUserId(currentId);
-
         //查询当前用户的购物车数据
-        List<ShoppingCart> shoppingCartList = shoppingCartMapper.list(shoppingCart);
+        List<ShoppingCart> shoppingCartList = shoppingCartRepository.list(currentId);
         if (shoppingCartList == null || shoppingCartList.size() == 0) {
             throw new ShoppingCartBusinessException(MessageConstant.SHOPPING_CART_IS_NULL);
         }
@@ -106,7 +125,7 @@ public class OrderServiceImpl implements OrderService {
         order.setPhone(addressBook.getPhone());
         order.setAddress(addressBook.getDetail());
         order.setConsignee(addressBook.getConsignee());
-        order.setNumber(String.valueOf(System.currentTimeMillis()));
+        order.setNumber(String.valueOf(snowflakeIdGenerator.nextId()));
         order.setUserId(currentId);
 
         order.setStatus(Orders.PENDING_PAYMENT);
@@ -127,7 +146,13 @@ public class OrderServiceImpl implements OrderService {
         orderDetailMapper.insertBatch(orderDetailList);
 
         //清理购物车中的数据
-        shoppingCartMapper.deleteByUserId(currentId);
+        shoppingCartRepository.clean(currentId);
+
+        //累加当天的订单总数
+        businessStatsService.onOrderSubmitted(order);
+
+        //加入支付超时队列，到期未支付自动取消
+        orderTimeoutTask.schedule(order);
 
         //封装返回的结果
         OrderSubmitVO orderSubmitVO = OrderSubmitVO.builder()
@@ -187,6 +212,9 @@ public class OrderServiceImpl implements OrderService {
 
         log.info("调用updateStatus,用于替换微信支付更新数据库状态的问题");
         orderMapper.updateStatus(OrderStatus,OrderPaidStatus,check_out_time,orderNumber);
+        if (orders != null) {
+            orderTimeoutTask.remove(orders.getId());
+        }
         return vo;
     }
 
@@ -211,6 +239,7 @@ public class OrderServiceImpl implements OrderService {
                 .checkoutTime(LocalDateTime.now())
                 .build();
         orderMapper.update(orders);
+        orderTimeoutTask.remove(orders.getId());
 
         HashMap map = new HashMap<>();
         map.put("type", 1);
@@ -241,23 +270,29 @@ public class OrderServiceImpl implements OrderService {
 //        分页条件查询
         Page<Orders> page = orderMapper.pageQuery(ordersPageQueryDTO);
 
-        ArrayList<OrderVO> list = new ArrayList<>();
-
         //查询出订单明细.并封装入OrderVo进行响应
-        if (page != null && page.getTotal() > 0) {
-            page.forEach(orders -> {
-                Long ordersId = orders.getId();
-                //查询订单明细
-                List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(ordersId);
+        return new PageResult(page.getTotal(), getOrderVoListWithDetail(page));
+    }
 
-                OrderVO orderVO = new OrderVO();
-                BeanUtils.copyProperties(orders, orderVO);
-                orderVO.setOrderDetailList(orderDetailList);
-                list.add(orderVO);
-            });
-        }
+    /**
+     * 历史订单游标分页查询
+     *
+     * @param cursor   上一页返回的游标，为空时查询第一页
+     * @param pageSize
+     * @param status   订单状态 1待付款 2待接单 3已接单 4派送中 5已完成 6已取消
+     * @return
+     */
+    @Override
+    public CursorPageResult pageQueryForUserByCursor(String cursor, int pageSize, Integer status) {
+        OrdersPageQueryDTO ordersPageQueryDTO = new OrdersPageQueryDTO();
+        ordersPageQueryDTO.setUserId(BaseContext.getCurrentId());
+        ordersPageQueryDTO.setStatus(status);
+        ordersPageQueryDTO.setCursor(cursor);
+        ordersPageQueryDTO.setPageSize(pageSize);
 
-        return new PageResult(page.getTotal(), list);
+        List<Orders> ordersList = new ArrayList<>();
+        String nextCursor = queryByCursor(ordersPageQueryDTO, ordersList);
+        return new CursorPageResult(getOrderVoListWithDetail(ordersList), nextCursor, null);
     }
 
     /**
@@ -322,6 +357,7 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelReason("用户取消");
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+        orderTimeoutTask.remove(orders.getId());
     }
 
 
@@ -348,7 +384,7 @@ public class OrderServiceImpl implements OrderService {
                     return shoppingCart;
                 }).collect(Collectors.toList());
         //将购物车对象批量添加到购物车
-        shoppingCartMapper.insertBatch(shoppingCartList);
+        shoppingCartRepository.addAll(userId, shoppingCartList);
     }
 
     /**
@@ -359,6 +395,9 @@ public class OrderServiceImpl implements OrderService {
      */
     @Override
     public PageResult conditionSearch(OrdersPageQueryDTO ordersPageQueryDTO) {
+        if (!resolveNumberAndPhone(ordersPageQueryDTO)) {
+            return new PageResult(0, new ArrayList<>());
+        }
         PageHelper.startPage(ordersPageQueryDTO.getPage(), ordersPageQueryDTO.getPageSize());
 
         Page<Orders> pageQuery = orderMapper.pageQuery(ordersPageQueryDTO);
@@ -368,6 +407,26 @@ public class OrderServiceImpl implements OrderService {
         return new PageResult(pageQuery.getTotal(), orderVoList);
     }
 
+    /**
+     * 订单搜索，游标分页
+     * 只有请求统计总数时才执行count查询
+     *
+     * @param ordersPageQueryDTO
+     * @return
+     */
+    @Override
+    public CursorPageResult conditionSearchByCursor(OrdersPageQueryDTO ordersPageQueryDTO) {
+        if (!resolveNumberAndPhone(ordersPageQueryDTO)) {
+            return new CursorPageResult(new ArrayList<>(), null, ordersPageQueryDTO.isWithTotal() ? 0L : null);
+        }
+        List<Orders> ordersList = new ArrayList<>();
+        String nextCursor = queryByCursor(ordersPageQueryDTO, ordersList);
+        Long total = ordersPageQueryDTO.isWithTotal() ? orderMapper.countByQuery(ordersPageQueryDTO) : null;
+
+//        部分订单状态，需要额外返回订单菜品信息，将orders转化为orderVo
+        return new CursorPageResult(getOrderVoList(ordersList), nextCursor, total);
+    }
+
     /**
      * 各个状态的订单数量统计
      *
@@ -473,6 +532,11 @@ public class OrderServiceImpl implements OrderService {
         orders.setCancelReason(ordersCancelDTO.getCancelReason());
         orders.setCancelTime(LocalDateTime.now());
         orderMapper.update(orders);
+
+        //已完成的订单被取消时，从营业数据中扣除
+        if (orderDB != null) {
+            businessStatsService.onOrderStatusChanged(orderDB, Orders.CANCELLED);
+        }
     }
 
     /**
@@ -523,6 +587,9 @@ public class OrderServiceImpl implements OrderService {
         orders.setDeliveryTime(LocalDateTime.now());
         orderMapper.update(orders);
 
+        //累加营业额和有效订单数
+        businessStatsService.onOrderStatusChanged(orderDB, Orders.COMPLETED);
+
     }
 
     /**
@@ -545,21 +612,115 @@ public class OrderServiceImpl implements OrderService {
         webSocketServer.sendToAllClient(JSON.toJSONString(map));
     }
 
+    /**
+     * 按订单号、手机号搜索时，先用前缀索引和倒序列索引查出匹配的订单id，分页查询只按id过滤
+     * 某个条件匹配的订单超过上限时不转换，仍在分页查询中按前缀或后缀过滤
+     * @param ordersPageQueryDTO
+     * @return 没有匹配的订单时返回false
+     */
+    private boolean resolveNumberAndPhone(OrdersPageQueryDTO ordersPageQueryDTO) {
+        String number = ordersPageQueryDTO.getNumber();
+        String phone = ordersPageQueryDTO.getPhone();
+        Set<Long> ids = null;
+
+        if (number != null && !number.isEmpty()) {
+            List<Long> matched = orderMapper.getIdsByNumber(number, reverse(number), maxSearchMatches + 1);
+            if (matched.size() <= maxSearchMatches) {
+                ids = new HashSet<>(matched);
+                ordersPageQueryDTO.setNumber(null);
+            }
+        }
+        if (phone != null && !phone.isEmpty()) {
+            List<Long> matched = orderMapper.getIdsByPhone(phone, reverse(phone), maxSearchMatches + 1);
+            if (matched.size() <= maxSearchMatches) {
+                if (ids == null) {
+                    ids = new HashSet<>(matched);
+                } else {
+                    ids.retainAll(new HashSet<>(matched));
+                }
+                ordersPageQueryDTO.setPhone(null);
+            }
+        }
+
+        if (ids == null) {
+            return true;
+        }
+        if (ids.isEmpty()) {
+            return false;
+        }
+        ordersPageQueryDTO.setIds(new ArrayList<>(ids));
+        return true;
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+
+    /**
+     * 按游标查询一页订单，多查一条用来判断是否还有下一页
+     * @param ordersPageQueryDTO 查询条件，cursor和pageSize为游标和每页条数
+     * @param ordersList 用于接收当前页的订单
+     * @return 下一页的游标，没有下一页时返回null
+     */
+    private String queryByCursor(OrdersPageQueryDTO ordersPageQueryDTO, List<Orders> ordersList) {
+        String cursor = ordersPageQueryDTO.getCursor();
+        if (cursor != null && !cursor.isEmpty()) {
+            OrderCursor orderCursor = OrderCursor.decode(cursor);
+            if (orderCursor == null) {
+                throw new OrderBusinessException(MessageConstant.ORDER_CURSOR_INVALID);
+            }
+            ordersPageQueryDTO.setAfterOrderTime(orderCursor.getOrderTime());
+            ordersPageQueryDTO.setAfterId(orderCursor.getId());
+        }
+        int pageSize = Math.min(Math.max(ordersPageQueryDTO.getPageSize(), 1), MAX_CURSOR_PAGE_SIZE);
+        ordersPageQueryDTO.setLimit(pageSize + 1);
+
+        List<Orders> result = orderMapper.pageQueryByCursor(ordersPageQueryDTO);
+        boolean hasMore = result.size() > pageSize;
+        ordersList.addAll(hasMore ? result.subList(0, pageSize) : result);
+        if (!hasMore) {
+            return null;
+        }
+        Orders last = ordersList.get(ordersList.size() - 1);
+        return new OrderCursor(last.getOrderTime(), last.getId()).encode();
+    }
+
+    /**
+     * 将orders转化为orderVo,并返回订单明细
+     * @param ordersList
+     * @return
+     */
+    private List<OrderVO> getOrderVoListWithDetail(List<Orders> ordersList) {
+        List<OrderVO> list = new ArrayList<>();
+        if (!CollectionUtils.isEmpty(ordersList)) {
+            //一次查询出当前页所有订单的明细
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
+            ordersList.forEach(orders -> {
+                OrderVO orderVO = new OrderVO();
+                BeanUtils.copyProperties(orders, orderVO);
+                orderVO.setOrderDetailList(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
+                list.add(orderVO);
+            });
+        }
+        return list;
+    }
+
     /**
      * 部分订单状态,需要额外返回订单菜品,将orders转化为orderVo
-     * @param page
+     * @param ordersList
      * @return
      */
-    private List<OrderVO> getOrderVoList(Page<Orders> page) {
+    private List<OrderVO> getOrderVoList(List<Orders> ordersList) {
         //需要返回订单菜品信息,自定义OrderVo响应结果
         List<OrderVO> ordersVOList = new ArrayList<>();
-        List<Orders> ordersList = page.getResult();
 
         if(!CollectionUtils.isEmpty(ordersList)){
+            //一次查询出当前页所有订单的明细
+            Map<Long, List<OrderDetail>> orderDetailMap = getOrderDetailMap(ordersList);
             ordersList.forEach(orders->{
                 OrderVO orderVO = new OrderVO();
                 BeanUtils.copyProperties(orders,orderVO);
-                String orderDishStr = getOrderDishStr(orders);
+                String orderDishStr = getOrderDishStr(orderDetailMap.getOrDefault(orders.getId(), new ArrayList<>()));
                 orderVO.setOrderDishes(orderDishStr);
                 ordersVOList.add(orderVO);
             });
@@ -568,80 +729,29 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 根据订单id获取菜品信息字符串
-     * @param orders
+     * 批量查询订单明细，按订单id分组
+     * @param ordersList
      * @return
      */
-    private String getOrderDishStr(Orders orders){
-        //查询订单菜品详情信息(订单中的菜品和数量)
-        List<OrderDetail> orderDetailList = orderDetailMapper.getByOrderId(orders.getId());
-        //        将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
-        List<String> ordewrDishList = orderDetailList.stream().map(orderDetail -> orderDetail.getName() + "*" + orderDetail.getNumber() + ";").collect(Collectors.toList());
-
-//        将该订单对应的所有菜品信息拼接在一起
-        return String.join("", ordewrDishList);
+    private Map<Long, List<OrderDetail>> getOrderDetailMap(List<Orders> ordersList) {
+        if (CollectionUtils.isEmpty(ordersList)) {
+            return new HashMap<>();
+        }
+        List<Long> orderIds = ordersList.stream().map(Orders::getId).collect(Collectors.toList());
+        return orderDetailMapper.getByOrderIds(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderDetail::getOrderId));
     }
 
     /**
-     * 检查客户的收货地址是否超出配送范围
-     * @param address
+     * 根据订单明细获取菜品信息字符串
+     * @param orderDetailList
+     * @return
      */
-    private void checkOutOfRange(String address)
-    {
-        HashMap map = new HashMap();
-        map.put("address",shopAddress);
-        map.put("output","json");
-        map.put("ak",ak);
-
-        //获取店铺的经纬度坐标
-        String shopCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        JSONObject jsonObject = JSON.parseObject(shopCoordinate);
-        if (!jsonObject.getString("status").equals("0")) {
-            throw new OrderBusinessException("店铺地址解析失败");
-        }
-
-        // 数据解析
-        JSONObject location = jsonObject.getJSONObject("result").getJSONObject("location");
-        String lat = location.getString("lat");
-        String lng = location.getString("lng");
-
-//        店铺经纬度坐标
-        String shopLngLat = lat + "," + lng;
-
-        map.put("address", address);
-
-//        获取用户地址的经纬度坐标
-        String userCoordinate = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-//        数据解析
-        location = JSON.parseObject("result").getJSONObject("location");
-        lat = location.getString("lat");
-        lng = location.getString("lng");
-
-//        用户收货地址经纬度坐标
-        String userLngLat = lat + "," + lng;
-
-        map.put("origin", shopLngLat);
-        map.put("destination", userLngLat);
-        map.put("steps_info", "0");
-
-        //路线规划
-        String json = HttpClientUtil.doGet("https://api.map.baidu.com/geocoding/v3", map);
-
-        jsonObject = JSON.parseObject(json);
-        if (!jsonObject.getString("status").equals("0")) {
-            throw new OrderBusinessException("配送线路规划失败");
-        }
-
-        //        数据解析
-        JSONObject result = jsonObject.getJSONObject("result");
-        JSONArray jsonArray = (JSONArray) result.get("routes");
-        Integer distance = (Integer) ((JSONObject) jsonArray.get(0)).get("distance");
+    private String getOrderDishStr(List<OrderDetail> orderDetailList){
+        //        将每一条订单菜品信息拼接为字符串（格式：宫保鸡丁*3；）
+        List<String> ordewrDishList = orderDetailList.stream().map(orderDetail -> orderDetail.getName() + "*" + orderDetail.getNumber() + ";").collect(Collectors.toList());
 
-        if(distance > 5000){
-            //配送距离超过5000米
-            throw new OrderBusinessException("超出配送范围");
-        }
+//        将该订单对应的所有菜品信息拼接在一起
+        return String.join("", ordewrDishList);
     }
 }
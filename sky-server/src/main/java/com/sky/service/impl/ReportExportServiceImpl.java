@@ -0,0 +1,297 @@
+package com.sky.service.impl;
+
+import com.sky.constant.MessageConstant;
+import com.sky.exception.ReportExportException;
+import com.sky.service.ReportExportService;
+import com.sky.service.WorkspaceService;
+import com.sky.vo.BusinessDataVO;
+import com.sky.vo.ReportExportJobVO;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 运营数据报表导出
+ * 报表基于模板生成，每天一行的明细用SXSSFWorkbook流式写出，内存中只保留固定数量的行，导出的天数不受限制
+ * 导出任务在后台线程中执行，报表文件保存在本节点的导出目录中，任务状态保存在本节点内存中
+ */
+@Service
+@Slf4j
+public class ReportExportServiceImpl implements ReportExportService {
+    private static final String TEMPLATE = "Excel/运营数据报表模板.xlsx";
+
+    //模板中每天明细的第一行
+    private static final int DAY_ROW_START = 7;
+
+    //明细的最后一列
+    private static final int DAY_COLUMN_END = 6;
+
+    private final Map<String, ReportExportJobVO> jobMap = new ConcurrentHashMap<>();
+
+    @Autowired
+    private WorkspaceService workspaceService;
+
+    //执行导出任务的线程池，只在本类中使用，不注册为Spring的Executor，以免替代默认的applicationTaskExecutor
+    private ThreadPoolExecutor reportExportExecutor;
+
+    @Value("${sky.report.export.threads:2}")
+    private int threads;
+
+    //排队的任务超过上限时拒绝提交
+    @Value("${sky.report.export.queue-capacity:10}")
+    private int queueCapacity;
+
+    //报表文件的保存目录
+    @Value("${sky.report.export.dir:${java.io.tmpdir}/sky-report}")
+    private String exportDir;
+
+    //SXSSFWorkbook在内存中保留的行数
+    @Value("${sky.report.export.row-window:100}")
+    private int rowWindow;
+
+    //导出任务完成后的保留时间，单位分钟
+    @Value("${sky.report.export.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        reportExportExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> new Thread(runnable, "report-export-" + threadNumber.incrementAndGet()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reportExportExecutor.shutdown();
+    }
+
+    /**
+     * 提交运营数据报表导出任务
+     * @param begin
+     * @param end
+     * @return
+     */
+    @Override
+    public ReportExportJobVO submit(LocalDate begin, LocalDate end) {
+        if (begin == null || end == null || begin.isAfter(end)) {
+            throw new ReportExportException(MessageConstant.REPORT_DATE_RANGE_ERROR);
+        }
+
+        ReportExportJobVO job = ReportExportJobVO.builder()
+                .id(UUID.randomUUID().toString().replace("-", ""))
+                .begin(begin)
+                .end(end)
+                .status(ReportExportJobVO.PENDING)
+                .createTime(LocalDateTime.now())
+                .build();
+        jobMap.put(job.getId(), job);
+        try {
+            reportExportExecutor.execute(() -> runJob(job.getId(), begin, end));
+        } catch (RejectedExecutionException e) {
+            jobMap.remove(job.getId());
+            throw new ReportExportException(MessageConstant.REPORT_EXPORT_BUSY);
+        }
+        log.info("提交运营数据报表导出任务：{}，{}至{}", job.getId(), begin, end);
+        return job;
+    }
+
+    /**
+     * 查询导出任务
+     * @param id
+     * @return
+     */
+    @Override
+    public ReportExportJobVO getJob(String id) {
+        ReportExportJobVO job = jobMap.get(id);
+        if (job == null) {
+            throw new ReportExportException(MessageConstant.REPORT_EXPORT_NOT_FOUND);
+        }
+        return job;
+    }
+
+    /**
+     * 下载已完成的导出任务生成的报表文件
+     * @param id
+     * @param response
+     */
+    @Override
+    public void download(String id, HttpServletResponse response) throws IOException {
+        ReportExportJobVO job = getJob(id);
+        if (!ReportExportJobVO.SUCCESS.equals(job.getStatus())) {
+            throw new ReportExportException(MessageConstant.REPORT_EXPORT_NOT_READY);
+        }
+
+        File file = getFile(id);
+        response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"business-" + job.getBegin() + "-" + job.getEnd() + ".xlsx\"");
+        response.setContentLengthLong(file.length());
+        Files.copy(file.toPath(), response.getOutputStream());
+        response.flushBuffer();
+    }
+
+    /**
+     * 生成日期区间内的运营数据报表
+     * 先用XSSFWorkbook填写模板中的概览数据，删除模板中预留的明细行，再转为SXSSFWorkbook逐天追加明细行
+     * @param begin
+     * @param end
+     * @param out
+     */
+    @Override
+    public void writeBusinessData(LocalDate begin, LocalDate end, OutputStream out) throws IOException {
+        //查询概览运营数据
+        BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(begin, LocalTime.MIN), LocalDateTime.of(end, LocalTime.MAX));
+
+        XSSFWorkbook template;
+        try (InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream(TEMPLATE)) {
+            template = new XSSFWorkbook(inputStream);
+        }
+        XSSFSheet templateSheet = template.getSheet("Sheet1");
+        templateSheet.getRow(1).getCell(1).setCellValue(begin + "至" + end);
+        XSSFRow row = templateSheet.getRow(3);
+        row.getCell(2).setCellValue(businessData.getTurnover());
+        row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
+        row.getCell(6).setCellValue(businessData.getNewUsers());
+        row = templateSheet.getRow(4);
+        row.getCell(2).setCellValue(businessData.getValidOrderCount());
+        row.getCell(4).setCellValue(businessData.getUnitPrice());
+
+        //记录模板中明细行的样式，然后删除预留的明细行
+        XSSFRow styleRow = templateSheet.getRow(DAY_ROW_START);
+        float rowHeight = styleRow.getHeightInPoints();
+        CellStyle[] styles = new CellStyle[DAY_COLUMN_END + 1];
+        for (int column = 1; column <= DAY_COLUMN_END; column++) {
+            styles[column] = styleRow.getCell(column).getCellStyle();
+        }
+        for (int rowIndex = templateSheet.getLastRowNum(); rowIndex >= DAY_ROW_START; rowIndex--) {
+            XSSFRow templateRow = templateSheet.getRow(rowIndex);
+            if (templateRow != null) {
+                templateSheet.removeRow(templateRow);
+            }
+        }
+
+        SXSSFWorkbook excel = new SXSSFWorkbook(template, rowWindow);
+        try {
+            SXSSFSheet sheet = excel.getSheet("Sheet1");
+            int[] rowIndex = {DAY_ROW_START};
+            workspaceService.streamDailyBusinessData(begin, end, (date, data) -> {
+                Row dayRow = sheet.createRow(rowIndex[0]++);
+                dayRow.setHeightInPoints(rowHeight);
+                createCell(dayRow, 1, styles).setCellValue(date.toString());
+                createCell(dayRow, 2, styles).setCellValue(data.getTurnover());
+                createCell(dayRow, 3, styles).setCellValue(data.getValidOrderCount());
+                createCell(dayRow, 4, styles).setCellValue(data.getOrderCompletionRate());
+                createCell(dayRow, 5, styles).setCellValue(data.getUnitPrice());
+                createCell(dayRow, 6, styles).setCellValue(data.getNewUsers());
+            });
+            excel.write(out);
+        } finally {
+            //删除SXSSFWorkbook写出的临时文件
+            excel.dispose();
+            excel.close();
+        }
+    }
+
+    /**
+     * 删除已过保留时间的导出任务和报表文件
+     */
+    @Override
+    public void cleanExpiredJobs() {
+        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobMap.values().removeIf(job -> {
+            if (job.getFinishTime() == null || job.getFinishTime().isAfter(expireTime)) {
+                return false;
+            }
+            getFile(job.getId()).delete();
+            return true;
+        });
+    }
+
+    /**
+     * 在后台线程中执行导出任务
+     * @param id
+     * @param begin
+     * @param end
+     */
+    private void runJob(String id, LocalDate begin, LocalDate end) {
+        updateJob(id, job -> job.setStatus(ReportExportJobVO.RUNNING));
+        File file = getFile(id);
+        try {
+            file.getParentFile().mkdirs();
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                writeBusinessData(begin, end, out);
+            }
+            updateJob(id, job -> {
+                job.setStatus(ReportExportJobVO.SUCCESS);
+                job.setFinishTime(LocalDateTime.now());
+            });
+            log.info("运营数据报表导出完成：{}", id);
+        } catch (Exception e) {
+            log.error("运营数据报表导出失败：{}", id, e);
+            file.delete();
+            updateJob(id, job -> {
+                job.setStatus(ReportExportJobVO.FAILED);
+                job.setMessage(e.getMessage());
+                job.setFinishTime(LocalDateTime.now());
+            });
+        }
+    }
+
+    /**
+     * 修改导出任务的状态，每次修改替换为新的对象，查询线程总能读到完整的状态
+     * @param id
+     * @param updater
+     */
+    private void updateJob(String id, Consumer<ReportExportJobVO> updater) {
+        jobMap.computeIfPresent(id, (key, job) -> {
+            ReportExportJobVO copy = new ReportExportJobVO();
+            BeanUtils.copyProperties(job, copy);
+            updater.accept(copy);
+            return copy;
+        });
+    }
+
+    private File getFile(String id) {
+        return new File(exportDir, id + ".xlsx");
+    }
+
+    private Cell createCell(Row row, int column, CellStyle[] styles) {
+        Cell cell = row.createCell(column);
+        cell.setCellStyle(styles[column]);
+        return cell;
+    }
+}
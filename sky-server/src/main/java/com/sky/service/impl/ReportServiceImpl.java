@@ -1,26 +1,24 @@
 package com.sky.service.impl;
 
 import com.sky.dto.GoodsSalesDTO;
+import com.sky.dto.OrderDateStatDTO;
+import com.sky.dto.UserDateStatDTO;
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.UserMapper;
+import com.sky.service.ReportExportService;
 import com.sky.service.ReportService;
-import com.sky.service.WorkspaceService;
 import com.sky.vo.*;
 import io.swagger.models.auth.In;
 //import jdk.vm.ci.meta.Local;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -28,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,7 +37,7 @@ public class ReportServiceImpl implements ReportService {
     @Autowired
     private UserMapper userMapper;
     @Autowired
-    private WorkspaceService workspaceService;
+    private ReportExportService reportExportService;
 
     /**
      * 根据时间区间统计营业额
@@ -48,26 +47,14 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public TurnoverReportVO getTurnover(LocalDate begin, LocalDate end) {
-        List<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-
-        while(!begin.equals(end)){
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
+        List<LocalDate> dateList = getDateList(begin, end);
 
+        //一次分组查询得到区间内每天的营业额，没有订单的日期补0
+        Map<LocalDate, OrderDateStatDTO> statMap = getOrderDateStatMap(begin, end);
         List<Double> turnoverList = new ArrayList<>();
-        for(LocalDate date:dateList){
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-            Map map = new HashMap();
-            map.put("status", Orders.COMPLETED);
-            map.put("begin", beginTime);
-            map.put("end", endTime);
-
-//            根据动态条件统计营业额
-            Double turnover = orderMapper.sumByMap(map);
-            turnover = turnover == null ? 0.0 : turnover;
+        for (LocalDate date : dateList) {
+            OrderDateStatDTO stat = statMap.get(date);
+            Double turnover = stat == null || stat.getTurnover() == null ? 0.0 : stat.getTurnover();
             turnoverList.add(turnover);
         }
         //封装数据到VO
@@ -86,25 +73,27 @@ public class ReportServiceImpl implements ReportService {
      */
     @Override
     public UserReportVO getUserStatistics(LocalDate begin, LocalDate end) {
-        ArrayList<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
+        List<LocalDate> dateList = getDateList(begin, end);
 
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
-        ArrayList<Integer> newUserList = new ArrayList<>();
-        ArrayList<Integer> totalUserList = new ArrayList<>();
-        dateList.forEach(date -> {
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
-
-            Integer newUser = getUserCount(beginTime, endTime);
-            Integer totalUser = getUserCount(null, endTime);
+        //区间开始之前的用户总量，作为累计用户数的起点
+        Integer totalUser = getUserCount(null, LocalDateTime.of(begin.minusDays(1), LocalTime.MAX));
 
+        //一次分组查询得到区间内每天的新增用户数
+        Map map = new HashMap();
+        map.put("begin", LocalDateTime.of(begin, LocalTime.MIN));
+        map.put("end", LocalDateTime.of(end, LocalTime.MAX));
+        Map<LocalDate, Integer> newUserMap = userMapper.getDateStats(map).stream()
+                .collect(Collectors.toMap(UserDateStatDTO::getCreateDate, UserDateStatDTO::getUserCount));
+
+        List<Integer> newUserList = new ArrayList<>();
+        List<Integer> totalUserList = new ArrayList<>();
+        for (LocalDate date : dateList) {
+            Integer newUser = newUserMap.getOrDefault(date, 0);
+            //用户总量为前一天的总量加上当天的新增用户
+            totalUser += newUser;
             newUserList.add(newUser);
             totalUserList.add(totalUser);
-        });
+        }
         return UserReportVO.builder()
                 .dateList(StringUtils.join(dateList, ","))
                 .newUserList(StringUtils.join(newUserList, ","))
@@ -121,42 +110,32 @@ public class ReportServiceImpl implements ReportService {
     @Override
     public OrderReportVO getOrderStatistics(LocalDate begin,LocalDate end)
     {
-        ArrayList<LocalDate> dateList = new ArrayList<>();
-        dateList.add(begin);
-        while (!begin.equals(end)) {
-            begin = begin.plusDays(1);
-            dateList.add(begin);
-        }
-
-        //        每天订单总数集合
-        ArrayList<Integer> orderCountList = new ArrayList<>();
+        List<LocalDate> dateList = getDateList(begin, end);
 
-//        媒体有效订单数集合
-        ArrayList<Integer> validOrderCountList = new ArrayList<>();
+        //一次分组查询得到区间内每天的订单总数和有效订单数
+        Map<LocalDate, OrderDateStatDTO> statMap = getOrderDateStatMap(begin, end);
 
-        dateList.forEach(date->{
-            LocalDateTime beginTime = LocalDateTime.of(date, LocalTime.MIN);
-            LocalDateTime endTime = LocalDateTime.of(date, LocalTime.MAX);
+        //每天订单总数集合
+        List<Integer> orderCountList = new ArrayList<>();
 
-//            查询每天总数
-            Integer orderCount = getOrderCount(beginTime, endTime, null);
+        //每天有效订单数集合
+        List<Integer> validOrderCountList = new ArrayList<>();
 
-//            查询每天有效订单数
-            Integer validOrderCount = getOrderCount(beginTime, endTime, Orders.COMPLETED);
-
-            orderCountList.add(orderCount);
-            validOrderCountList.add(validOrderCount);
-        });
+        for (LocalDate date : dateList) {
+            OrderDateStatDTO stat = statMap.get(date);
+            orderCountList.add(stat == null ? 0 : stat.getOrderCount());
+            validOrderCountList.add(stat == null ? 0 : stat.getValidOrderCount());
+        }
 
         //时间区段内的总订单数
-        Integer totalOrderCount = orderCountList.stream().reduce(Integer::sum).get();
+        Integer totalOrderCount = orderCountList.stream().reduce(0, Integer::sum);
         //区间时间内有效订单数
-        Integer validOrderCount = validOrderCountList.stream().reduce(Integer::sum).get();
+        Integer validOrderCount = validOrderCountList.stream().reduce(0, Integer::sum);
 
         //订单完成率
         Double orderCompletionRate = 0.0;
-        if (totalOrderCount !=0){
-            orderCompletionRate = totalOrderCount.doubleValue()/totalOrderCount;
+        if (totalOrderCount != 0) {
+            orderCompletionRate = validOrderCount.doubleValue() / totalOrderCount;
         }
 
         return OrderReportVO.builder()
@@ -198,65 +177,46 @@ public class ReportServiceImpl implements ReportService {
     public void exportBusinessData(HttpServletResponse response) {
         LocalDate begin= LocalDate.now().minusDays(30);
         LocalDate end= LocalDate.now().minusDays(1);
-        //查询概览运营数据,提供给Excel模板文件
-        BusinessDataVO businessData = workspaceService.getBusinessData(LocalDateTime.of(begin,LocalTime.MIN), LocalDateTime.of(end, LocalTime.MAX));
-        InputStream inputStream = this.getClass().getClassLoader().getResourceAsStream("Excel/运营数据报表模板.xlsx");
         try{
-//            基于提供好的模板文件创建一个新的Excel表格对象
-            XSSFWorkbook excel = new XSSFWorkbook(inputStream);
-            //获得Excel文件中的一个Sheet页
-            XSSFSheet sheet = excel.getSheet("Sheet1");
-
-            sheet.getRow(1).getCell(1).setCellValue(begin + "至" + end);
-            //获得第4行
-            XSSFRow row = sheet.getRow(3);
-            //获取单元格
-            row.getCell(2).setCellValue(businessData.getTurnover());
-            row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-            row.getCell(6).setCellValue(businessData.getNewUsers());
-
-            row = sheet.getRow(4);
-            row.getCell(2).setCellValue(businessData.getValidOrderCount());
-            row.getCell(4).setCellValue(businessData.getUnitPrice());
-
-            for(int i=0;i<30;++i){
-                LocalDate date =begin.plusDays(i);
-                //准备明细数据
-                businessData = workspaceService.getBusinessData(LocalDateTime.of(date,LocalTime.MIN), LocalDateTime.of(date, LocalTime.MAX));
-                row = sheet.getRow(7 + i);
-                row.getCell(1).setCellValue(date.toString());
-                row.getCell(2).setCellValue(businessData.getTurnover());
-                row.getCell(3).setCellValue(businessData.getValidOrderCount());
-                row.getCell(4).setCellValue(businessData.getOrderCompletionRate());
-                row.getCell(5).setCellValue(businessData.getUnitPrice());
-                row.getCell(6).setCellValue(businessData.getNewUsers());
-            }
             //通过输出流将文件下载到客户端浏览器中
             ServletOutputStream out = response.getOutputStream();
-            excel.write(out);
-            //关闭资源
+            reportExportService.writeBusinessData(begin, end, out);
             out.flush();
             out.close();
-            excel.close();
         }catch (IOException e){
             e.printStackTrace();
         }
     }
 
     /**
-     * 根据时间区间统计指定状态的订单数量
+     * 生成从begin到end(包含)的日期列表
      *
-     * @param beginTime
-     * @param endTime
-     * @param status
+     * @param begin
+     * @param end
      * @return
      */
-    private Integer getOrderCount(LocalDateTime beginTime, LocalDateTime endTime, Integer status) {
+    private List<LocalDate> getDateList(LocalDate begin, LocalDate end) {
+        List<LocalDate> dateList = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plusDays(1)) {
+            dateList.add(date);
+        }
+        return dateList;
+    }
+
+    /**
+     * 按天分组查询时间区间内的订单统计数据，以日期为key返回
+     *
+     * @param begin
+     * @param end
+     * @return
+     */
+    private Map<LocalDate, OrderDateStatDTO> getOrderDateStatMap(LocalDate begin, LocalDate end) {
         Map map = new HashMap();
-        map.put("status", status);
-        map.put("begin", beginTime);
-        map.put("end", endTime);
-        return orderMapper.countByMap(map);
+        map.put("status", Orders.COMPLETED);
+        map.put("begin", LocalDateTime.of(begin, LocalTime.MIN));
+        map.put("end", LocalDateTime.of(end, LocalTime.MAX));
+        return orderMapper.getDateStats(map).stream()
+                .collect(Collectors.toMap(OrderDateStatDTO::getOrderDate, Function.identity()));
     }
 
     /**
@@ -15,6 +15,8 @@ import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealDishMapper;
 import com.sky.mapper.SetmealMapper;
 import com.sky.result.PageResult;
+import com.sky.search.NameIndexType;
+import com.sky.service.NameSearchService;
 import com.sky.service.SetmealService;
 import com.sky.vo.DishItemVO;
 import com.sky.vo.SetmealVO;
@@ -26,6 +28,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.security.PrivateKey;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Service
@@ -37,6 +40,8 @@ public class SetmealServiceImpl implements SetmealService {
     private SetmealDishMapper setmealDishMapper;
     @Autowired
     private DishMapper dishMapper;
+    @Autowired
+    private NameSearchService nameSearchService;
 
     /**
      *新增套餐
@@ -54,7 +59,7 @@ public class SetmealServiceImpl implements SetmealService {
         List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
         setmealDishes.forEach(setmealDish -> setmealDish.setSetmealId(id));
         setmealDishMapper.insertBatch(setmealDishes);
-
+        nameSearchService.refresh(NameIndexType.SETMEAL, Collections.singletonList(id));
     }
 
     /**
@@ -64,6 +69,16 @@ public class SetmealServiceImpl implements SetmealService {
      */
     @Override
     public PageResult pageQuery(SetmealPageQueryDTO setmealPageQueryDTO) {
+        //按名称查询时先从名称索引中检索出id，只查询这些套餐
+        List<Long> ids = nameSearchService.search(NameIndexType.SETMEAL, setmealPageQueryDTO.getName());
+        if (ids != null) {
+            if (ids.isEmpty()) {
+                return new PageResult(0, new ArrayList<>());
+            }
+            setmealPageQueryDTO.setIds(ids);
+            setmealPageQueryDTO.setName(null);
+        }
+
         PageHelper.startPage(setmealPageQueryDTO.getPage(), setmealPageQueryDTO.getPageSize());
 
         Page<SetmealVO> page = setmealMapper.pageQuery(setmealPageQueryDTO);
@@ -91,6 +106,7 @@ public class SetmealServiceImpl implements SetmealService {
 //            删除套餐餐品关系表中的数据
             setmealDishMapper.deleteBySetmealId(id);
         });
+        nameSearchService.refresh(NameIndexType.SETMEAL, ids);
     }
 
     /**
@@ -125,6 +141,7 @@ public class SetmealServiceImpl implements SetmealService {
         List<SetmealDish> setmealDishes = setmealDTO.getSetmealDishes();
         setmealDishes.forEach(setmealDish ->  setmealDish.setSetmealId(id));
         setmealDishMapper.insertBatch(setmealDishes);
+        nameSearchService.refresh(NameIndexType.SETMEAL, Collections.singletonList(id));
     }
 
 
@@ -0,0 +1,120 @@
+package com.sky.service.impl;
+
+import com.sky.constant.StatusConstant;
+import com.sky.service.ShopService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 店铺营业状态
+ * 状态保存在redis中，每个节点在本地缓存一小段时间；修改后通过redis消息通知其他节点立即更新，
+ * 消息丢失或redis不可用时，本地缓存过期后重新读取，读取失败时继续使用上次的状态
+ */
+@Service
+@Slf4j
+public class ShopServiceImpl implements ShopService, MessageListener {
+    public static final String KEY = "SHOP_STATUS";
+
+    public static final String STATUS_CHANNEL = "sky:shop:status";
+
+    //消息中标识本节点，收到自己发出的消息时忽略
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile LocalStatus localStatus;
+
+    @Value("${sky.shop.status.local-ttl-ms:5000}")
+    private long localTtlMillis;
+
+    @Autowired
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(STATUS_CHANNEL));
+    }
+
+    @Override
+    public void setStatus(Integer status) {
+        redisTemplate.opsForValue().set(KEY, status);
+        localStatus = new LocalStatus(status, System.currentTimeMillis() + localTtlMillis);
+        try {
+            stringRedisTemplate.convertAndSend(STATUS_CHANNEL, nodeId + "|" + status);
+        } catch (Exception e) {
+            //其他节点在本地缓存过期后读取到新的状态
+            log.error("发送店铺营业状态变更消息失败", e);
+        }
+    }
+
+    @Override
+    public Integer getStatus() {
+        LocalStatus current = localStatus;
+        long now = System.currentTimeMillis();
+        if (current != null && current.expiresAt > now) {
+            return current.status;
+        }
+
+        meterRegistry.counter("sky.shop.status.loads").increment();
+        try {
+            Integer status = (Integer) redisTemplate.opsForValue().get(KEY);
+            //从未设置过时视为打烊
+            if (status == null) {
+                status = StatusConstant.DISABLE;
+            }
+            localStatus = new LocalStatus(status, now + localTtlMillis);
+            return status;
+        } catch (Exception e) {
+            if (current == null) {
+                throw e;
+            }
+            //redis不可用时继续使用上次的状态，过一个缓存周期后再重试
+            log.warn("读取店铺营业状态失败，继续使用上次的状态：{}", current.status, e);
+            localStatus = new LocalStatus(current.status, now + localTtlMillis);
+            return current.status;
+        }
+    }
+
+    /**
+     * 其他节点修改后发来的消息，格式：节点id|状态
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|");
+        if (parts.length != 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        localStatus = new LocalStatus(Integer.valueOf(parts[1]), System.currentTimeMillis() + localTtlMillis);
+    }
+
+    private static class LocalStatus {
+        private final Integer status;
+
+        private final long expiresAt;
+
+        private LocalStatus(Integer status, long expiresAt) {
+            this.status = status;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -7,7 +7,7 @@ import com.sky.entity.Setmeal;
 import com.sky.entity.ShoppingCart;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.ShoppingCartMapper;
+import com.sky.repository.ShoppingCartRepository;
 import com.sky.service.ShoppingCartService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +19,7 @@ import java.util.List;
 @Service
 public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Autowired
-    private ShoppingCartMapper shoppingCartMapper;
+    private ShoppingCartRepository shoppingCartRepository;
     @Autowired
     private DishMapper dishMapper;
     @Autowired
@@ -32,38 +32,10 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Override
     public void addShoppingCart(ShoppingCartDTO shoppingCartDTO)
     {
-        ShoppingCart shoppingCart = new ShoppingCart();
-        BeanUtils.copyProperties(shoppingCartDTO,shoppingCart);
-        //只能查询自己的购物车数据
-        shoppingCart.setUserId(BaseContext.getCurrentId());
-        //判断当前商品是否在购物车中
-        List<ShoppingCart> shoppingCartsList=shoppingCartMapper.list(shoppingCart);
-
-        if(shoppingCartsList!=null&&shoppingCartsList.size()>0)
-        {
-            //如果存在，则更新数量+1
-            shoppingCart =  shoppingCartsList.get(0);
-            shoppingCart.setNumber(shoppingCart.getNumber()+1);
-            shoppingCartMapper.updateNumberById(shoppingCart);
-        }else{
-            //如果不存在,插入数据
-            Long dishId = shoppingCartDTO.getDishId();
-            if(dishId!=null){
-                Dish dish = dishMapper.getById(dishId);
-                shoppingCart.setName(dish.getName());
-                shoppingCart.setImage(dish.getImage());
-                shoppingCart.setAmount(dish.getPrice());
-            }else{
-                //dish不存在，则添加到购物车的是套餐
-                Setmeal setmeal = setmealMapper.getById(shoppingCartDTO.getSetmealId());
-                shoppingCart.setName(setmeal.getName());
-                shoppingCart.setImage(setmeal.getImage());
-                shoppingCart.setAmount(setmeal.getPrice());
-            }
-            shoppingCart.setNumber(1);
-            shoppingCart.setCreateTime(LocalDateTime.now());
-            shoppingCartMapper.insert(shoppingCart);
-        }
+        //只能操作自己的购物车数据
+        Long userId = BaseContext.getCurrentId();
+        //商品不在购物车中时，才需要查询商品信息
+        shoppingCartRepository.increment(userId, shoppingCartDTO, () -> buildShoppingCart(userId, shoppingCartDTO));
     }
 
     /**
@@ -73,7 +45,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Override
     public List<ShoppingCart> showShoppingCart()
     {
-        return shoppingCartMapper.list(ShoppingCart.builder().userId(BaseContext.getCurrentId()).build());
+        return shoppingCartRepository.list(BaseContext.getCurrentId());
     }
 
     /**
@@ -82,7 +54,7 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
     @Override
     public void cleanShoppingCart()
     {
-        shoppingCartMapper.deleteByUserId(BaseContext.getCurrentId());
+        shoppingCartRepository.clean(BaseContext.getCurrentId());
     }
 
     /**
@@ -91,23 +63,36 @@ public class ShoppingCartServiceImpl implements ShoppingCartService {
      */
     @Override
     public void subShoppingCart(ShoppingCartDTO shoppingCartDTO)
+    {
+        shoppingCartRepository.decrement(BaseContext.getCurrentId(), shoppingCartDTO);
+    }
+
+    /**
+     * 根据菜品或套餐信息构造购物车商品
+     * @param userId
+     * @param shoppingCartDTO
+     * @return
+     */
+    private ShoppingCart buildShoppingCart(Long userId, ShoppingCartDTO shoppingCartDTO)
     {
         ShoppingCart shoppingCart = new ShoppingCart();
         BeanUtils.copyProperties(shoppingCartDTO,shoppingCart);
-        //设置查询条件,查询当前登录用户的购物车数据
-        shoppingCart.setUserId(BaseContext.getCurrentId());
-        List<ShoppingCart> list=shoppingCartMapper.list(shoppingCart);
-        if(list!=null && list.size()>0)
-        {
-            shoppingCart =  list.get(0);
-            Integer number=shoppingCart.getNumber();
-            if(number ==1){
-                //份数为1，直接删除
-                shoppingCartMapper.deleteById(shoppingCart.getId());
-            }else{
-                shoppingCart.setNumber(number-1);
-                shoppingCartMapper.updateNumberById(shoppingCart);
-            }
+        shoppingCart.setUserId(userId);
+        Long dishId = shoppingCartDTO.getDishId();
+        if(dishId!=null){
+            Dish dish = dishMapper.getById(dishId);
+            shoppingCart.setName(dish.getName());
+            shoppingCart.setImage(dish.getImage());
+            shoppingCart.setAmount(dish.getPrice());
+        }else{
+            //dish不存在，则添加到购物车的是套餐
+            Setmeal setmeal = setmealMapper.getById(shoppingCartDTO.getSetmealId());
+            shoppingCart.setName(setmeal.getName());
+            shoppingCart.setImage(setmeal.getImage());
+            shoppingCart.setAmount(setmeal.getPrice());
         }
+        shoppingCart.setNumber(1);
+        shoppingCart.setCreateTime(LocalDateTime.now());
+        return shoppingCart;
     }
 }
@@ -8,6 +8,7 @@ import com.sky.entity.User;
 import com.sky.exception.LoginFailedException;
 import com.sky.mapper.UserMapper;
 import com.sky.properties.WeChatProperties;
+import com.sky.service.BusinessStatsService;
 import com.sky.service.UserService;
 import com.sky.utils.HttpClientUtil;
 import lombok.extern.slf4j.Slf4j;
@@ -30,6 +31,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private BusinessStatsService businessStatsService;
+
     /**
      * 调用微信接口服务，获取微信用户的openid
      * @param code
@@ -73,6 +77,8 @@ public class UserServiceImpl implements UserService {
                     .openid(openid)
                     .createTime(LocalDateTime.now()).build();
             userMapper.insert(user);
+            //累加当天的新增用户数
+            businessStatsService.onUserRegistered(user);
         }
 
 //        返回这个用户对象
@@ -1,11 +1,12 @@
 package com.sky.service.impl;
 
 import com.sky.constant.StatusConstant;
+import com.sky.entity.DailyBusinessStats;
 import com.sky.entity.Orders;
+import com.sky.mapper.DailyBusinessStatsMapper;
 import com.sky.mapper.DishMapper;
 import com.sky.mapper.OrderMapper;
 import com.sky.mapper.SetmealMapper;
-import com.sky.mapper.UserMapper;
 import com.sky.service.WorkspaceService;
 import com.sky.vo.BusinessDataVO;
 import com.sky.vo.DishOverViewVO;
@@ -14,10 +15,14 @@ import com.sky.vo.SetmealOverViewVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 @Service
 @Slf4j
@@ -25,58 +30,72 @@ public class WorkspaceServiceImpl implements WorkspaceService {
     @Autowired
     private OrderMapper orderMapper;
 
-    @Autowired
-    private UserMapper userMapper;
-
     @Autowired
     private DishMapper dishMapper;
 
     @Autowired
     private SetmealMapper setmealMapper;
 
+    @Autowired
+    private DailyBusinessStatsMapper dailyBusinessStatsMapper;
+
     /**
      * 根据时间段统计营业数据
+     * 从每日营业数据汇总表中读取，按天粒度统计
      * @param begin
      * @param end
      * @return
      */
     public BusinessDataVO getBusinessData(LocalDateTime begin, LocalDateTime end) {
-        /**
-         * 营业额：当日已完成订单的总金额
-         * 有效订单：当日已完成订单的数量
-         * 订单完成率：有效订单数 / 总订单数
-         * 平均客单价：营业额 / 有效订单数
-         * 新增用户：当日新增用户的数量
-         */
-        Map map = new HashMap();
-        map.put("begin", begin);
-        map.put("end", end);
-        //查询订单总数
-        Integer totalOrderCount = orderMapper.countByMap(map);
-        log.info("totalOrderCount:{}", totalOrderCount);
-
-        map.put("status", Orders.COMPLETED);
-        //营业额
-        Double turnover = orderMapper.sumByMap(map);
-        turnover = turnover == null ? 0 : turnover;
+        DailyBusinessStats sum = dailyBusinessStatsMapper.sumByDateRange(begin.toLocalDate(), end.toLocalDate());
+        return buildBusinessData(sum);
+    }
 
-        //有效订单数
-        Integer validOrderCount = orderMapper.countByMap(map);
+    /**
+     * 按日期顺序逐天处理日期区间内的营业数据
+     * 汇总表按日期升序逐行读取，读到一行时先补齐之前没有数据的日期
+     * @param begin
+     * @param end
+     * @param consumer
+     */
+    @Override
+    public void streamDailyBusinessData(LocalDate begin, LocalDate end, BiConsumer<LocalDate, BusinessDataVO> consumer) {
+        BusinessDataVO empty = buildBusinessData(0, 0, BigDecimal.ZERO, 0);
+        //下一个需要处理的日期
+        LocalDate[] next = {begin};
+        dailyBusinessStatsMapper.streamByDateRange(begin, end, resultContext -> {
+            DailyBusinessStats stats = resultContext.getResultObject();
+            for (; next[0].isBefore(stats.getStatDate()); next[0] = next[0].plusDays(1)) {
+                consumer.accept(next[0], empty);
+            }
+            consumer.accept(stats.getStatDate(), buildBusinessData(stats));
+            next[0] = stats.getStatDate().plusDays(1);
+        });
+        for (; !next[0].isAfter(end); next[0] = next[0].plusDays(1)) {
+            consumer.accept(next[0], empty);
+        }
+    }
 
+    /**
+     * 根据汇总数据计算营业数据
+     * 营业额：已完成订单的总金额
+     * 有效订单：已完成订单的数量
+     * 订单完成率：有效订单数 / 总订单数
+     * 平均客单价：营业额 / 有效订单数
+     * 新增用户：新增用户的数量
+     */
+    private BusinessDataVO buildBusinessData(int totalOrderCount, int validOrderCount, BigDecimal turnover, int newUsers) {
         Double unitPrice = 0.0;
-
         Double orderCompletionRate = 0.0;
         if (totalOrderCount != 0 && validOrderCount != 0) {
             //订单完成率
-            orderCompletionRate = validOrderCount.doubleValue() / totalOrderCount;
+            orderCompletionRate = (double) validOrderCount / totalOrderCount;
             //平均客单价
-            unitPrice = turnover / validOrderCount;
+            unitPrice = turnover.doubleValue() / validOrderCount;
         }
-        //新增用户数
-        Integer newUsers = userMapper.countByMap(map);
 
         return BusinessDataVO.builder()
-                .turnover(turnover)
+                .turnover(turnover.doubleValue())
                 .validOrderCount(validOrderCount)
                 .orderCompletionRate(orderCompletionRate)
                 .unitPrice(unitPrice)
@@ -84,6 +103,13 @@ public class WorkspaceServiceImpl implements WorkspaceService {
                 .build();
     }
 
+    /**
+     * 根据一天或多天的汇总记录计算营业数据
+     */
+    private BusinessDataVO buildBusinessData(DailyBusinessStats stats) {
+        return buildBusinessData(stats.getOrderCount(), stats.getValidOrderCount(), stats.getTurnover(), stats.getNewUsers());
+    }
+
     /**
      * 查询订单管理数据
      * @return
@@ -0,0 +1,34 @@
+package com.sky.task;
+
+import com.sky.service.BusinessStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * 定时任务，按订单表和用户表重算最近几天的每日营业数据，修正增量维护可能产生的偏差
+ */
+@Component
+@Slf4j
+public class BusinessStatsTask {
+    @Autowired
+    private BusinessStatsService businessStatsService;
+
+    //每次重算的天数
+    @Value("${sky.stats.rebuild-days:7}")
+    private int rebuildDays;
+
+    /**
+     * 每天凌晨2点重算最近几天的营业数据
+     */
+    @Scheduled(cron = "0 0 2 * * ?")
+    public void rebuildRecentStats() {
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate begin = end.minusDays(rebuildDays - 1);
+        businessStatsService.rebuild(begin, end);
+    }
+}
@@ -0,0 +1,31 @@
+package com.sky.task;
+
+import com.sky.service.MenuSnapshotService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时建立用户端菜单快照，并定时重建，修正漏掉的变更消息
+ */
+@Component
+@Slf4j
+public class MenuSnapshotTask implements ApplicationRunner {
+    @Autowired
+    private MenuSnapshotService menuSnapshotService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        menuSnapshotService.rebuild();
+    }
+
+    @Scheduled(initialDelayString = "${sky.menu.snapshot.refresh-ms:300000}",
+            fixedDelayString = "${sky.menu.snapshot.refresh-ms:300000}")
+    public void rebuild() {
+        log.debug("定时重建菜单快照");
+        menuSnapshotService.rebuild();
+    }
+}
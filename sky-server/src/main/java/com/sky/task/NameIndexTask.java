@@ -0,0 +1,30 @@
+package com.sky.task;
+
+import com.sky.service.NameSearchService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时建立菜品、套餐、分类的名称检索索引，并定时重建，修正漏掉的刷新消息
+ */
+@Component
+@Slf4j
+public class NameIndexTask implements ApplicationRunner {
+    @Autowired
+    private NameSearchService nameSearchService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        nameSearchService.rebuild();
+    }
+
+    @Scheduled(cron = "${sky.search.rebuild-cron:0 0 4 * * ?}")
+    public void rebuild() {
+        log.info("定时重建名称检索索引");
+        nameSearchService.rebuild();
+    }
+}
@@ -2,17 +2,28 @@ package com.sky.task;
 
 import com.sky.entity.Orders;
 import com.sky.mapper.OrderMapper;
+import com.sky.service.BusinessStatsService;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * 自定义定时任务，实现订单状态定时处理
+ * 待处理的订单按id游标分批处理，每批一个事务：锁定查出的订单后用一条update修改状态
  */
 @Component
 @Slf4j
@@ -20,26 +31,33 @@ public class OrderTask {
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private BusinessStatsService businessStatsService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    //每批处理的订单数量
+    @Value("${sky.order.task.chunk-size:500}")
+    private int chunkSize;
+
+    //支付超时时间，单位分钟
+    @Value("${sky.order.pay-timeout-minutes:15}")
+    private long payTimeoutMinutes;
+
     /**
-     * 处理支付超时订单
+     * 兜底处理支付超时订单
+     * 超时订单由OrderTimeoutTask的延时队列及时取消，这里只处理redis数据丢失等原因漏掉的订单
      */
-    @Scheduled(cron = "0 * * * * ?")
+    @Scheduled(cron = "${sky.order.task.timeout-sweep-cron:0 0/10 * * * ?}")
     public void processTimeoutOrder() {
-        log.info("处理支付超时订单：{}", new Date());
-        LocalDateTime time = LocalDateTime.now().plusMinutes(-15);
-
-        //查询已经超时的未支付订单 15分钟未支付则为超时
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTime(Orders.PENDING_PAYMENT, time);
-
-        if (ordersList != null && ordersList.size() > 0) {
-            ordersList.forEach(orders -> {
-                orders.setStatus(Orders.CANCELLED);
-                orders.setCancelReason("支付超时，自动取消");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
-            });
+        log.info("兜底处理支付超时订单：{}", new Date());
+        LocalDateTime time = LocalDateTime.now().minusMinutes(payTimeoutMinutes);
 
-        }
+        processInChunks("timeout", Orders.PENDING_PAYMENT, time, Orders.CANCELLED, "支付超时，自动取消", null);
     }
 
     /**
@@ -49,16 +67,64 @@ public class OrderTask {
     public void processOrder() {
         log.info("处理派送未确认完成的订单：{}", new Date());
         LocalDateTime time = LocalDateTime.now().plusMinutes(-60);
-        List<Orders> ordersList = orderMapper.getByStatusAndOrderTime(Orders.DELIVERY_IN_PROGRESS, time);
-
-        if (ordersList != null && ordersList.size() > 0) {
-            ordersList.forEach(orders -> {
-                orders.setStatus(Orders.COMPLETED);
-                orders.setCancelReason("派送完成，订单完成");
-                orders.setCancelTime(LocalDateTime.now());
-                orderMapper.update(orders);
+
+        //累加营业额和有效订单数
+        processInChunks("complete", Orders.DELIVERY_IN_PROGRESS, time, Orders.COMPLETED, "派送完成，订单完成",
+                ordersList -> businessStatsService.onOrdersStatusChanged(ordersList, Orders.COMPLETED));
+    }
+
+    /**
+     * 分批把指定状态、下单时间早于orderTime的订单修改为新状态
+     * 记录指标 sky.order.task.rows(处理的订单数) 和 sky.order.task.chunk(每批耗时)，按job区分
+     * @param job 任务名称
+     * @param fromStatus 原状态
+     * @param orderTime 下单时间上限
+     * @param toStatus 新状态
+     * @param reason 写入cancel_reason的说明
+     * @param beforeUpdate 修改状态前对本批订单的额外处理，与修改状态在同一个事务中，可为null
+     * @return 处理的订单总数
+     */
+    private int processInChunks(String job, Integer fromStatus, LocalDateTime orderTime, Integer toStatus,
+                                String reason, Consumer<List<Orders>> beforeUpdate) {
+        long lastId = 0L;
+        int total = 0;
+        while (true) {
+            long start = System.nanoTime();
+            Long afterId = lastId;
+            List<Orders> chunk = transactionTemplate.execute(status -> {
+                List<Orders> ordersList = orderMapper.getByStatusAndOrderTimeAfterId(fromStatus, orderTime, afterId, chunkSize);
+                if (ordersList == null || ordersList.isEmpty()) {
+                    return Collections.<Orders>emptyList();
+                }
+                if (beforeUpdate != null) {
+                    beforeUpdate.accept(ordersList);
+                }
+
+                Map map = new HashMap();
+                map.put("ids", ordersList.stream().map(Orders::getId).collect(Collectors.toList()));
+                map.put("fromStatus", fromStatus);
+                map.put("toStatus", toStatus);
+                map.put("cancelReason", reason);
+                map.put("cancelTime", LocalDateTime.now());
+                orderMapper.updateStatusByIds(map);
+                return ordersList;
             });
+            if (chunk == null || chunk.isEmpty()) {
+                break;
+            }
+
+            meterRegistry.timer("sky.order.task.chunk", "job", job).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meterRegistry.counter("sky.order.task.rows", "job", job).increment(chunk.size());
+            total += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
         }
-    }
 
+        if (total > 0) {
+            log.info("订单定时任务{}处理完成，共{}条", job, total);
+        }
+        return total;
+    }
 }
@@ -0,0 +1,109 @@
+package com.sky.task;
+
+import com.sky.entity.Orders;
+import com.sky.mapper.OrderMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 基于redis zset的支付超时延时队列
+ * 下单时以订单id为成员、支付截止时间为分值加入队列，支付或取消后移出队列
+ * 每秒取出已到期的订单并取消，OrderTask中的定时扫描只作为低频的兜底
+ */
+@Component
+@Slf4j
+public class OrderTimeoutTask {
+    public static final String KEY = "sky:order:timeout";
+
+    //取出已到期的订单并从队列中删除，多个节点同时拉取时每个订单只会被一个节点取到
+    private static final DefaultRedisScript<List> POLL_SCRIPT = new DefaultRedisScript<>(
+            "local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #ids > 0 then redis.call('ZREM', KEYS[1], unpack(ids)) end " +
+            "return ids", List.class);
+
+    //取消失败时，延后重试的时间，单位毫秒
+    private static final long RETRY_DELAY = 10000L;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private OrderMapper orderMapper;
+
+    //支付超时时间，单位分钟
+    @Value("${sky.order.pay-timeout-minutes:15}")
+    private long payTimeoutMinutes;
+
+    //每次最多取消的订单数量
+    @Value("${sky.order.task.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * 订单创建后，加入支付超时队列
+     * @param orders
+     */
+    public void schedule(Orders orders) {
+        LocalDateTime deadline = orders.getOrderTime().plusMinutes(payTimeoutMinutes);
+        long score = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        stringRedisTemplate.opsForZSet().add(KEY, String.valueOf(orders.getId()), score);
+    }
+
+    /**
+     * 订单已支付或已取消，移出支付超时队列
+     * @param orderId
+     */
+    public void remove(Long orderId) {
+        stringRedisTemplate.opsForZSet().remove(KEY, String.valueOf(orderId));
+    }
+
+    /**
+     * 每秒取消已到支付截止时间的订单
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void cancelExpiredOrders() {
+        List<String> ids;
+        do {
+            ids = stringRedisTemplate.execute(POLL_SCRIPT, Collections.singletonList(KEY),
+                    String.valueOf(System.currentTimeMillis()), String.valueOf(chunkSize));
+            if (ids == null || ids.isEmpty()) {
+                return;
+            }
+            cancel(ids);
+        } while (ids.size() >= chunkSize);
+    }
+
+    /**
+     * 取消仍处于待付款状态的订单，已支付或已取消的订单不受影响
+     * @param ids
+     */
+    private void cancel(List<String> ids) {
+        Map map = new HashMap();
+        map.put("ids", ids.stream().map(Long::valueOf).collect(Collectors.toList()));
+        map.put("fromStatus", Orders.PENDING_PAYMENT);
+        map.put("toStatus", Orders.CANCELLED);
+        map.put("cancelReason", "支付超时，自动取消");
+        map.put("cancelTime", LocalDateTime.now());
+        try {
+            Integer count = orderMapper.updateStatusByIds(map);
+            log.info("支付超时自动取消订单：到期{}条，取消{}条", ids.size(), count);
+        } catch (RuntimeException e) {
+            //放回队列稍后重试，重试前宕机的订单由定时扫描兜底
+            log.error("支付超时订单取消失败，稍后重试：{}", ids, e);
+            double retryAt = System.currentTimeMillis() + RETRY_DELAY;
+            ids.forEach(id -> stringRedisTemplate.opsForZSet().add(KEY, id, retryAt));
+        }
+    }
+}
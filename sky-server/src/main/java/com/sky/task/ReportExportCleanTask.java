@@ -0,0 +1,23 @@
+package com.sky.task;
+
+import com.sky.service.ReportExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时清理过期的报表导出任务和文件
+ */
+@Component
+public class ReportExportCleanTask {
+    @Autowired
+    private ReportExportService reportExportService;
+
+    /**
+     * 每10分钟清理一次
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void cleanExpiredJobs() {
+        reportExportService.cleanExpiredJobs();
+    }
+}
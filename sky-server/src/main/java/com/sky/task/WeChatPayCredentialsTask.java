@@ -0,0 +1,23 @@
+package com.sky.task;
+
+import com.sky.utils.WeChatPayUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定时检查微信支付商户私钥和平台证书文件，文件更新后重新加载
+ */
+@Component
+@Slf4j
+public class WeChatPayCredentialsTask {
+
+    @Autowired
+    private WeChatPayUtil weChatPayUtil;
+
+    @Scheduled(fixedDelayString = "${sky.wechat.reload-check-ms:60000}")
+    public void reloadCredentials() {
+        weChatPayUtil.reloadIfChanged();
+    }
+}
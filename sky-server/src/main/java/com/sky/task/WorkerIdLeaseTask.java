@@ -0,0 +1,160 @@
+package com.sky.task;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从redis中租用雪花算法的机器id，并定时续约
+ * 每个机器id对应一个带过期时间的key，节点宕机后租约自动过期，机器id可被其他节点复用
+ * 续约使用单独的线程，不受其他定时任务执行时间的影响；每次续约成功后延长id生成器的有效期，
+ * 续约失败时id生成器在租约过期前停止生成id，租约被其他节点占用时重新租用一个空闲的机器id
+ */
+@Component
+@Slf4j
+public class WorkerIdLeaseTask {
+    public static final String KEY_PREFIX = "sky:id:worker:";
+
+    //仍由当前节点持有时才续期，返回1表示续约成功
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('expire', KEYS[1], ARGV[2]) " +
+                    "else return 0 end", Long.class);
+
+    //仍由当前节点持有时才删除
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+                    "return redis.call('del', KEYS[1]) " +
+                    "else return 0 end", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    //当前节点的租约标识
+    private final String owner = UUID.randomUUID().toString();
+
+    private final ScheduledExecutorService renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "worker-id-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Long workerId;
+
+    private long maxWorkerId;
+
+    private long leaseTtl;
+
+    private SnowflakeIdGenerator generator;
+
+    /**
+     * 租用一个空闲的机器id
+     * @param maxWorkerId 最大机器id
+     * @param leaseTtl 租约有效期，单位秒
+     * @return
+     */
+    public long acquire(long maxWorkerId, long leaseTtl) {
+        this.maxWorkerId = maxWorkerId;
+        this.leaseTtl = leaseTtl;
+        Long id = tryAcquire(null);
+        if (id == null) {
+            throw new IllegalStateException("没有空闲的机器id可以租用");
+        }
+        return id;
+    }
+
+    /**
+     * 开始为id生成器续约，每隔租约有效期的1/3续约一次
+     * @param generator 使用租到的机器id创建的生成器
+     */
+    public void start(SnowflakeIdGenerator generator) {
+        this.generator = generator;
+        generator.renewLease(workerId, validUntil(System.currentTimeMillis()));
+        long period = Math.max(1, TimeUnit.SECONDS.toMillis(leaseTtl) / 3);
+        renewExecutor.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    void renew() {
+        long start = System.currentTimeMillis();
+        try {
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(KEY_PREFIX + workerId),
+                    owner, String.valueOf(leaseTtl));
+            if (Long.valueOf(1).equals(renewed)) {
+                generator.renewLease(workerId, validUntil(start));
+                return;
+            }
+
+            //租约已过期，先尝试重新占用原机器id，已被其他节点占用时改用其他空闲的机器id
+            log.warn("机器id {} 的租约已失效，重新租用", workerId);
+            Long id = tryAcquire(workerId);
+            if (id == null) {
+                log.error("没有空闲的机器id可以租用，id生成器已停止生成id");
+                return;
+            }
+            generator.renewLease(id, validUntil(start));
+        } catch (Exception e) {
+            //续约失败时不延长有效期，租约过期前id生成器会停止生成id
+            log.error("机器id {} 续约失败", workerId, e);
+        }
+    }
+
+    /**
+     * 依次尝试占用机器id
+     * @param preferred 优先尝试的机器id，可以为null
+     * @return 租到的机器id，没有空闲的机器id时返回null
+     */
+    private Long tryAcquire(Long preferred) {
+        if (preferred != null && setIfAbsent(preferred)) {
+            return preferred;
+        }
+        for (long id = 0; id <= maxWorkerId; id++) {
+            if (setIfAbsent(id)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    private boolean setIfAbsent(long id) {
+        Boolean success = stringRedisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + id, owner, leaseTtl, TimeUnit.SECONDS);
+        if (Boolean.TRUE.equals(success)) {
+            workerId = id;
+            log.info("租用机器id：{}", id);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * id生成器的有效期：从发起续约的时间算起，只使用租约有效期的2/3，留出时钟误差和停顿的余量
+     */
+    private long validUntil(long renewStart) {
+        return renewStart + TimeUnit.SECONDS.toMillis(leaseTtl) * 2 / 3;
+    }
+
+    /**
+     * 应用关闭时释放租约
+     */
+    @PreDestroy
+    public void release() {
+        renewExecutor.shutdownNow();
+        if (workerId == null) {
+            return;
+        }
+        Long released = stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(KEY_PREFIX + workerId), owner);
+        if (Long.valueOf(1).equals(released)) {
+            log.info("释放机器id：{}", workerId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.sky.websocket;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.websocket.Session;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个客户端的发送通道
+ * 待发送的消息放入有界队列，通过异步发送逐条发出，同一时刻每个会话最多只有一条消息在发送中
+ * 队列已满时丢弃最早的消息；与队列中尚未发出的消息相同时合并，不重复发送
+ */
+@Slf4j
+class ClientChannel {
+    private final String sid;
+
+    private final Session session;
+
+    private final BlockingQueue<String> queue;
+
+    //是否有消息正在发送
+    private final AtomicBoolean sending = new AtomicBoolean(false);
+
+    ClientChannel(String sid, Session session, int capacity) {
+        this.sid = sid;
+        this.session = session;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * 消息加入发送队列，并尝试发送
+     * @param message
+     */
+    void send(String message) {
+        if (!queue.contains(message)) {
+            while (!queue.offer(message)) {
+                //队列已满，丢弃最早的消息
+                if (queue.poll() != null) {
+                    Metrics.counter("sky.websocket.dropped").increment();
+                }
+            }
+        }
+        flush();
+    }
+
+    /**
+     * 是否为指定会话的发送通道
+     * @param session
+     * @return
+     */
+    boolean belongsTo(Session session) {
+        return this.session.getId().equals(session.getId());
+    }
+
+    /**
+     * 待发送的消息数量
+     * @return
+     */
+    int depth() {
+        return queue.size();
+    }
+
+    /**
+     * 没有消息在发送中时，发送队列中的下一条消息，发送完成后继续发送
+     */
+    private void flush() {
+        while (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+            String message = queue.poll();
+            if (message == null) {
+                sending.set(false);
+                continue;
+            }
+            if (!session.isOpen()) {
+                queue.clear();
+                sending.set(false);
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                session.getAsyncRemote().sendText(message, result -> {
+                    Metrics.timer("sky.websocket.send").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (!result.isOK()) {
+                        log.warn("向客户端{}发送消息失败：{}", sid, result.getException().getMessage());
+                    }
+                    sending.set(false);
+                    flush();
+                });
+            } catch (RuntimeException e) {
+                log.warn("向客户端{}发送消息失败：{}", sid, e.getMessage());
+                sending.set(false);
+            }
+            return;
+        }
+    }
+}
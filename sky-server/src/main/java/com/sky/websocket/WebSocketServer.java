@@ -1,61 +1,114 @@
 package com.sky.websocket;
 
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PreDestroy;
 import javax.websocket.OnClose;
-import javax.websocket.OnMessage;
+import javax.websocket.OnError;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.PathParam;
 import javax.websocket.server.ServerEndpoint;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * WebSocket服务
+ * 群发只把消息交给后台线程，由每个客户端的发送通道异步发出，慢客户端不会阻塞调用方和其他客户端
+ * 指标：sky.websocket.sessions(连接数)、sky.websocket.queue.depth(待发送消息数)、
+ * sky.websocket.send(发送耗时)、sky.websocket.dropped(队列已满丢弃的消息数)
  */
 @Component
 @ServerEndpoint("/ws/{sid}")
+@Slf4j
 public class WebSocketServer {
-    //存放会话对象
-    private static Map<String, Session> sessionMap = new HashMap<>();
+    //存放会话对应的发送通道，端点实例由容器按连接创建，因此使用静态变量
+    private static final Map<String, ClientChannel> channelMap = new ConcurrentHashMap<>();
 
+    //群发使用的后台线程
+    private static final ExecutorService broadcastExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "websocket-broadcast");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //每个客户端最多缓存的待发送消息数
+    private static volatile int queueCapacity = 64;
+
+    static {
+        Metrics.gauge("sky.websocket.sessions", channelMap, Map::size);
+        Metrics.gauge("sky.websocket.queue.depth", channelMap,
+                map -> map.values().stream().mapToInt(ClientChannel::depth).sum());
+    }
+
+    @Value("${sky.websocket.queue-capacity:64}")
+    public void setQueueCapacity(int queueCapacity) {
+        WebSocketServer.queueCapacity = queueCapacity;
+    }
 
     /**
      * 连接建立成功调用的方法
      */
     @OnOpen
     public void onOpen(Session session, @PathParam("sid") String sid) {
-        System.out.println("客户端：" + sid + "建立连接");
-        sessionMap.put(sid, session);
+        log.info("客户端：{}建立连接", sid);
+        channelMap.put(sid, new ClientChannel(sid, session, queueCapacity));
     }
 
     /**
      * 连接关闭调用的方法
+     * @param session
      * @param sid
      */
     @OnClose
-    public void onClose(@PathParam("sid") String sid) {
-        System.out.println("连接断开:" + sid);
-        sessionMap.remove(sid);
+    public void onClose(Session session, @PathParam("sid") String sid) {
+        log.info("连接断开:{}", sid);
+        removeChannel(sid, session);
+    }
+
+    /**
+     * 连接出错调用的方法
+     * @param session
+     * @param sid
+     * @param error
+     */
+    @OnError
+    public void onError(Session session, @PathParam("sid") String sid, Throwable error) {
+        log.warn("连接异常:{}，{}", sid, error.getMessage());
+        removeChannel(sid, session);
     }
 
     /**
-     * 群发
+     * 群发，消息在后台线程中放入各客户端的发送队列，不阻塞调用方
      * @param message
      */
     public void sendToAllClient(String message)
     {
-        Collection<Session> sessions = sessionMap.values();
-        for(Session session:sessions){
-            try{
-                //服务器向客户端发送消息
-                session.getBasicRemote().sendText(message);
-            }catch(Exception e){
-                e.printStackTrace();
+        broadcastExecutor.execute(() -> channelMap.values().forEach(channel -> {
+            try {
+                channel.send(message);
+            } catch (Exception e) {
+                log.warn("群发消息失败：{}", e.getMessage());
             }
-        }
+        }));
+    }
+
+    /**
+     * 移除会话对应的发送通道，同一sid已重新建立连接时保留新的通道
+     * @param sid
+     * @param session
+     */
+    private void removeChannel(String sid, Session session) {
+        channelMap.computeIfPresent(sid, (key, channel) -> channel.belongsTo(session) ? null : channel);
     }
 
+    @PreDestroy
+    public void shutdown() {
+        broadcastExecutor.shutdown();
+    }
 }
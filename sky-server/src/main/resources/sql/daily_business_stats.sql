@@ -0,0 +1,13 @@
+-- 每日营业数据汇总表
+-- 由订单状态流转和用户注册增量维护，BusinessStatsTask每晚按原始数据重算最近几天
+-- 全量回填：POST /admin/workspace/rebuildStats?begin=yyyy-MM-dd&end=yyyy-MM-dd
+create table if not exists daily_business_stats
+(
+    stat_date         date           not null comment '统计日期(下单日期/注册日期)',
+    order_count       int            not null default 0 comment '订单总数',
+    valid_order_count int            not null default 0 comment '有效订单数(已完成)',
+    turnover          decimal(12, 2) not null default 0 comment '营业额(已完成订单金额)',
+    new_users         int            not null default 0 comment '新增用户数',
+    update_time       datetime       null comment '更新时间',
+    primary key (stat_date)
+) comment '每日营业数据汇总';
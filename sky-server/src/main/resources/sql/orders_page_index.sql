@@ -0,0 +1,13 @@
+-- 订单分页查询(OrderMapper.pageQuery / pageQueryByCursor)使用的索引
+-- 游标分页按 order by order_time desc, id desc 取数，条件 (order_time < ? or (order_time = ? and id < ?))
+-- 等值条件在前、(order_time, id) 在后，MySQL可以直接沿索引倒序扫描，不需要filesort，深翻页也只读取一页的数据
+
+-- 用户端历史订单：user_id = ? [and status = ?]
+create index idx_orders_user_time_id on orders (user_id, order_time, id);
+create index idx_orders_user_status_time_id on orders (user_id, status, order_time, id);
+
+-- 管理端订单搜索：按状态筛选，或只按下单时间范围筛选
+create index idx_orders_status_time_id on orders (status, order_time, id);
+create index idx_orders_time_id on orders (order_time, id);
+
+-- number、phone 的检索索引见 orders_search_index.sql
@@ -0,0 +1,15 @@
+-- 管理端订单搜索按订单号、手机号的前缀或后缀匹配(例如手机尾号4位)
+-- like '%?%' 无法使用索引；前缀用 number/phone 的索引，后缀把字段倒序存一份，用倒序列的前缀索引查找
+-- number_rev、phone_rev 在下单插入订单时写入(OrderMapper.insert)
+
+alter table orders
+    add column number_rev varchar(50) null comment '倒序的订单号，用于按后缀检索',
+    add column phone_rev varchar(11) null comment '倒序的手机号，用于按尾号检索';
+
+-- 回填已有订单，数据量大时按id分段执行
+update orders set number_rev = reverse(number), phone_rev = reverse(phone) where number_rev is null;
+
+create index idx_orders_number on orders (number);
+create index idx_orders_number_rev on orders (number_rev);
+create index idx_orders_phone on orders (phone);
+create index idx_orders_phone_rev on orders (phone_rev);
@@ -0,0 +1,2 @@
+-- 订单定时任务按 status = ? and id > ? order by id 分批扫描待流转的订单
+create index idx_orders_status_id on orders (status, id);
@@ -0,0 +1,63 @@
+package com.sky.test;
+
+import com.sky.search.NameIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 名称n-gram索引测试
+ */
+public class NameIndexTest {
+
+    /**
+     * 测试1：检索结果与 name like '%关键字%' 一致
+     */
+    @Test
+    public void testSearchMatchesLike() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "宫保鸡丁");
+        index.put(2L, "辣子鸡丁");
+        index.put(3L, "鸡蛋汤");
+        index.put(4L, "保鸡");
+
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(index.search("鸡丁")));
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L, 3L, 4L)), new HashSet<>(index.search("鸡")));
+        assertEquals(Collections.singletonList(1L), index.search("宫保鸡"));
+        //包含全部两字gram但并不连续的名称不能命中
+        assertEquals(Collections.emptyList(), index.search("鸡保"));
+        assertEquals(Collections.emptyList(), index.search("鱼"));
+    }
+
+    /**
+     * 测试2：修改和删除后旧名称不再命中
+     */
+    @Test
+    public void testUpdateAndRemove() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "宫保鸡丁");
+        index.put(1L, "水煮鱼");
+        assertEquals(Collections.emptyList(), index.search("鸡丁"));
+        assertEquals(Collections.singletonList(1L), index.search("煮鱼"));
+
+        index.remove(1L);
+        assertEquals(Collections.emptyList(), index.search("煮鱼"));
+        assertEquals(0, index.size());
+    }
+
+    /**
+     * 测试3：不区分大小写和全角半角
+     */
+    @Test
+    public void testNormalize() {
+        NameIndex index = new NameIndex();
+        index.put(1L, "Coca Cola");
+        index.put(2L, "ＶＩＰ套餐");
+        assertEquals(Collections.singletonList(1L), index.search("coca"));
+        assertEquals(Collections.singletonList(2L), index.search("vip"));
+    }
+}
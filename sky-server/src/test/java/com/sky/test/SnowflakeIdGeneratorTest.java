@@ -0,0 +1,92 @@
+package com.sky.test;
+
+import com.sky.utils.SnowflakeIdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 雪花算法id生成器测试
+ */
+public class SnowflakeIdGeneratorTest {
+
+    /**
+     * 测试1：同一节点生成的id唯一且严格递增
+     */
+    @Test
+    public void testUniqueAndMonotonic() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        Set<Long> ids = new HashSet<>();
+        long last = -1;
+        for (int i = 0; i < 200000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            assertTrue(ids.add(id));
+            last = id;
+        }
+    }
+
+    /**
+     * 测试2：不同机器id在同一毫秒生成的id不重复
+     */
+    @Test
+    public void testDifferentWorkers() {
+        FixedClockGenerator a = new FixedClockGenerator(1);
+        FixedClockGenerator b = new FixedClockGenerator(2);
+        assertNotEquals(a.nextId(), b.nextId());
+    }
+
+    /**
+     * 测试3：时钟大幅回拨时拒绝生成id
+     */
+    @Test
+    public void testClockMovedBackwards() {
+        FixedClockGenerator generator = new FixedClockGenerator(1);
+        generator.nextId();
+        generator.now -= 1000;
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    /**
+     * 测试4：机器id超出范围时报错
+     */
+    @Test
+    public void testInvalidWorkerId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    /**
+     * 测试5：租约过期后拒绝生成id，重新租用机器id后使用新的机器id
+     */
+    @Test
+    public void testLeaseExpired() {
+        FixedClockGenerator generator = new FixedClockGenerator(1);
+        generator.renewLease(1, generator.now + 1000);
+        generator.nextId();
+        generator.now += 1000;
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.renewLease(2, generator.now + 1000);
+        long id = generator.nextId();
+        assertEquals(2, (id >> 12) & SnowflakeIdGenerator.MAX_WORKER_ID);
+    }
+
+    /**
+     * 可以控制时间的id生成器
+     */
+    private static class FixedClockGenerator extends SnowflakeIdGenerator {
+        long now = System.currentTimeMillis();
+
+        FixedClockGenerator(long workerId) {
+            super(workerId);
+        }
+
+        @Override
+        protected long currentTimeMillis() {
+            return now;
+        }
+    }
+}